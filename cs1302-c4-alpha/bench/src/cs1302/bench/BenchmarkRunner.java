@@ -0,0 +1,55 @@
+package cs1302.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * A command-line program that runs the JMH benchmarks of this module with the {@code gc}
+ * profiler, which reports the bytes allocated per operation, and optionally the
+ * {@code perfasm} profiler, which attributes the time to the hottest compiled code.
+ *
+ * <p>
+ * The benchmarks live outside {@code src} because they need JMH, which the rest of the
+ * project does not. The Maven module in {@code bench} compiles them together with the game's
+ * sources, runs the JMH annotation processor and packages everything into one jar, so they are
+ * built and run from the project directory with
+ *
+ * <pre>
+ * $ mvn -f bench/pom.xml package
+ * $ java -cp bench/target/benchmarks.jar cs1302.bench.BenchmarkRunner [perfasm] [REGEX]
+ * </pre>
+ *
+ * <p>
+ * {@code REGEX} selects benchmarks by name, e.g. {@code dropCheckUndo}. JMH's own options can
+ * be given instead with {@code java -jar bench/target/benchmarks.jar}, whose main class is
+ * {@code org.openjdk.jmh.Main}. The {@code perfasm} profiler needs Linux {@code perf} and the
+ * {@code hsdis} disassembler library; the benchmark JVM is started with
+ * {@code -XX:+DebugNonSafepoints} so that time is attributed to the right instructions.
+ */
+public class BenchmarkRunner {
+
+    /**
+     * Entry point to the {@link cs1302.bench.BenchmarkRunner} program.
+     *
+     * @param args the command-line arguments
+     * @throws RunnerException if a benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+            .addProfiler(GCProfiler.class)
+            .jvmArgsAppend("-XX:+UnlockDiagnosticVMOptions", "-XX:+DebugNonSafepoints");
+        String include = ConnectFourBenchmark.class.getSimpleName();
+        for (String arg : args) {
+            if (arg.equalsIgnoreCase("perfasm")) {
+                options.addProfiler("perfasm");
+            } else {
+                include = arg;
+            } // if
+        } // for
+        new Runner(options.include(include).build()).run();
+    } // main
+
+} // BenchmarkRunner
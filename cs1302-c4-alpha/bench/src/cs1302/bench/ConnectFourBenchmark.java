@@ -0,0 +1,239 @@
+package cs1302.bench;
+
+import cs1302.game.ConnectFour;
+import cs1302.gameutil.Token;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH microbenchmarks of the core {@link cs1302.game.ConnectFour} operations, on every
+ * supported grid size and on an empty, a half-full and a nearly full grid. See
+ * {@link cs1302.bench.BenchmarkRunner} for how to build and run them.
+ *
+ * <p>
+ * The grids are filled by the same seeded random drops every time, skipping any drop that
+ * would connect four, so every run measures the same positions. A nearly full grid has one
+ * open cell left at the top of each column. Operations that change the grid take their drop
+ * back with {@link cs1302.game.ConnectFour#undo} in the same invocation, so the position is
+ * the same for every invocation; {@link #dropUndo} measures that pair on its own, and the
+ * cost of the other operations is their score less its score.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectFourBenchmark {
+
+    /**
+     * Drop a token into the next open column and take it back.
+     *
+     * @param board the position
+     * @return whether the drop was taken back
+     */
+    @Benchmark
+    public boolean dropUndo(Board board) {
+        board.game.dropToken(board.player, board.nextColumn());
+        return board.game.undo();
+    } // dropUndo
+
+    /**
+     * Drop a token into the next open column, check it for a connect four, and take it back.
+     * The check examines only the lines through the drop.
+     *
+     * @param board the position
+     * @return whether the drop connected four
+     */
+    @Benchmark
+    public boolean dropCheckUndo(Board board) {
+        board.game.dropToken(board.player, board.nextColumn());
+        boolean won = board.game.isLastDropConnectFour();
+        board.game.undo();
+        return won;
+    } // dropCheckUndo
+
+    /**
+     * Check the whole grid for a connect four of each player.
+     *
+     * @param board the position
+     * @param hole the sink for the results
+     */
+    @Benchmark
+    public void checkConnectFour(Board board, Blackhole hole) {
+        hole.consume(board.game.checkConnectFour(Token.RED));
+        hole.consume(board.game.checkConnectFour(Token.BLUE));
+    } // checkConnectFour
+
+    /**
+     * Read every cell of the grid.
+     *
+     * @param board the position
+     * @param hole the sink for the tokens
+     */
+    @Benchmark
+    public void getTokenAt(Board board, Blackhole hole) {
+        ConnectFour game = board.game;
+        for (int row = 0; row < game.getRows(); row++) {
+            for (int col = 0; col < game.getCols(); col++) {
+                hole.consume(game.getTokenAt(row, col));
+            } // for
+        } // for
+    } // getTokenAt
+
+    /**
+     * Render the grid with {@link cs1302.gameutil.TokenGrid}. Standard output is replaced by a
+     * stream that discards everything, so only the rendering is measured.
+     *
+     * @param board the position
+     * @param out the discarding standard output
+     */
+    @Benchmark
+    public void printGrid(Board board, NullOutput out) {
+        board.game.printGrid();
+    } // printGrid
+
+    /**
+     * A position to benchmark, set up once per trial.
+     */
+    @State(Scope.Thread)
+    public static class Board {
+
+        // The first seed tried when filling a grid.
+        private static final long SEED = 1302;
+
+        /** The grid size, as {@code ROWSxCOLS}. */
+        @Param({"6x7", "6x8", "6x9", "7x7", "7x8", "7x9", "8x7", "8x8", "8x9", "9x7", "9x8",
+                "9x9"})
+        public String size;
+
+        /** How full the grid is: {@code empty}, {@code mid} (half full) or {@code full}. */
+        @Param({"empty", "mid", "full"})
+        public String fill;
+
+        ConnectFour game; // the position
+        int player;       // the player to move
+        int[] open;       // the columns that are not full
+        int next;         // index into open of the next column to drop into
+
+        /**
+         * Fill a grid of the size and fullness given by the parameters.
+         *
+         * @throws IllegalStateException if no seed fills the grid without a connect four
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            String[] dims = size.split("x");
+            int rows = Integer.parseInt(dims[0]);
+            int cols = Integer.parseInt(dims[1]);
+            int tokens = 0;
+            if (fill.equals("mid")) {
+                tokens = rows * cols / 2;
+            } else if (fill.equals("full")) {
+                tokens = (rows - 1) * cols;
+            } // if
+            for (long seed = SEED; seed < SEED + 10_000; seed++) {
+                game = fill(rows, cols, tokens, new SplittableRandom(seed));
+                if (game != null) {
+                    player = tokens % 2;
+                    open = new int[Long.bitCount(game.legalMoves())];
+                    long legal = game.legalMoves();
+                    for (int i = 0; i < open.length; i++, legal &= legal - 1) {
+                        open[i] = Long.numberOfTrailingZeros(legal);
+                    } // for
+                    return;
+                } // if
+            } // for
+            throw new IllegalStateException("Cannot fill " + size + " to " + tokens + " tokens");
+        } // setUp
+
+        /**
+         * Return the next open column, cycling through them all.
+         *
+         * @return the column
+         */
+        int nextColumn() {
+            int col = open[next];
+            next = next + 1 == open.length ? 0 : next + 1;
+            return col;
+        } // nextColumn
+
+        /**
+         * Drop {@code tokens} tokens at random without connecting four, leaving the top cell of
+         * every column open.
+         *
+         * @param rows the number of grid rows
+         * @param cols the number of grid columns
+         * @param tokens the number of tokens to drop
+         * @param random the source of the columns
+         * @return the game, or {@code null} if the drops ran into a dead end
+         */
+        private static ConnectFour fill(int rows, int cols, int tokens, SplittableRandom random) {
+            ConnectFour game = new ConnectFour(rows, cols);
+            game.setPlayerTokens(Token.RED, Token.BLUE);
+            int[] height = new int[cols];
+            for (int ply = 0; ply < tokens; ply++) {
+                long allowed = 0;
+                for (int col = 0; col < cols; col++) {
+                    if (height[col] < rows - 1 && !game.isWinningDrop(ply % 2, col)) {
+                        allowed |= 1L << col;
+                    } // if
+                } // for
+                if (allowed == 0) {
+                    return null;
+                } // if
+                for (int skip = random.nextInt(Long.bitCount(allowed)); skip > 0; skip--) {
+                    allowed &= allowed - 1;
+                } // for
+                int col = Long.numberOfTrailingZeros(allowed);
+                game.dropToken(ply % 2, col);
+                height[col]++;
+            } // for
+            return game;
+        } // fill
+
+    } // Board
+
+    /**
+     * Standard output replaced, for one trial, by a stream that discards everything.
+     */
+    @State(Scope.Thread)
+    public static class NullOutput {
+
+        private PrintStream saved; // the real standard output
+
+        /**
+         * Replace standard output.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            saved = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        } // setUp
+
+        /**
+         * Restore standard output.
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            System.setOut(saved);
+        } // tearDown
+
+    } // NullOutput
+
+} // ConnectFourBenchmark
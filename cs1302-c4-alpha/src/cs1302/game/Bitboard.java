@@ -0,0 +1,242 @@
+package cs1302.game;
+
+/**
+ * A {@code Bitboard} records which cells of a {@link cs1302.game.ConnectFour} grid are occupied
+ * by one player. Cells are numbered column by column, starting with the bottom cell of column
+ * {@code 0}. Each column uses {@code rows + 1} bits: one bit per cell plus an always-empty
+ * sentinel bit on top that stops runs from wrapping into the next column. The set is stored in
+ * as many {@code long} words as the grid needs: one for most classic sizes, such as
+ * {@code 7 * (6 + 1) = 49} bits, two for the largest one, {@code 9 * (9 + 1) = 90} bits, and
+ * {@code 65} for a {@code 64} by {@code 64} grid.
+ *
+ * <p>
+ * With this layout, a run of {@code k} cells in a line is a run of {@code k} bits that are
+ * {@code stride}-apart, where the stride is {@code 1} for vertical lines, {@code rows + 1} for
+ * horizontal lines, and {@code rows} or {@code rows + 2} for the two diagonals. Checking for a
+ * run then takes about {@code log2(k)} shift-and-AND passes over the words per direction. The
+ * solvers check runs at almost every node, so grids of one word, and connect four on grids of
+ * two words, take their passes without looping over the words.
+ */
+final class Bitboard {
+
+    private final long[] words; // bit i is bit (i % 64) of words[i / 64]
+    private final long[] run;   // scratch space for the run searches
+    private final long[] clear; // scratch space for the cells hasRunClear searches
+
+    /**
+     * Construct an empty {@code Bitboard} that can hold bits {@code 0} to {@code bits - 1}.
+     *
+     * @param bits the number of bits
+     */
+    Bitboard(int bits) {
+        words = new long[Math.max(1, (bits + 63) >>> 6)];
+        run = new long[words.length];
+        clear = new long[words.length];
+    } // Bitboard
+
+    /**
+     * Construct a {@code Bitboard} with the same bits as {@code other}.
+     *
+     * @param other the bitboard to copy
+     */
+    Bitboard(Bitboard other) {
+        words = other.words.clone();
+        run = new long[words.length];
+        clear = new long[words.length];
+    } // Bitboard
+
+    /**
+     * Return whether the specified bit is set.
+     *
+     * @param bit the bit index
+     * @return {@code true} if the bit is set and {@code false} otherwise
+     */
+    boolean get(int bit) {
+        return (words[bit >>> 6] & (1L << bit)) != 0;
+    } // get
+
+    /**
+     * Set the specified bit.
+     *
+     * @param bit the bit index
+     */
+    void set(int bit) {
+        words[bit >>> 6] |= 1L << bit;
+    } // set
+
+    /**
+     * Clear the specified bit.
+     *
+     * @param bit the bit index
+     */
+    void clear(int bit) {
+        words[bit >>> 6] &= ~(1L << bit);
+    } // clear
+
+    /**
+     * Return whether this set contains {@code k} bits in a line for any of the four directions
+     * of a grid whose columns are {@code stride} bits apart.
+     *
+     * @param stride the number of bits used per column (i.e., {@code rows + 1})
+     * @param k the length of the run
+     * @return {@code true} if there is a run of {@code k} and {@code false} otherwise
+     */
+    boolean hasRun(int stride, int k) {
+        if (words.length == 1) {
+            long bits = words[0];
+            return hasRun(bits, 1, k)
+                || hasRun(bits, stride, k)
+                || hasRun(bits, stride - 1, k)
+                || hasRun(bits, stride + 1, k);
+        } else if (words.length == 2 && k == 4 && stride + 1 < 32) {
+            return hasFour(1, words[0], words[1])
+                || hasFour(stride, words[0], words[1])
+                || hasFour(stride - 1, words[0], words[1])
+                || hasFour(stride + 1, words[0], words[1]);
+        } // if
+        return hasRun(words, run, 1, k)
+            || hasRun(words, run, stride, k)
+            || hasRun(words, run, stride - 1, k)
+            || hasRun(words, run, stride + 1, k);
+    } // hasRun
+
+    /**
+     * Return whether {@code grid} contains {@code k} bits in a line, for any of the four
+     * directions, none of which is in this set. If {@code grid} holds every cell of the grid and
+     * this set holds one player's tokens, then this is whether the other player can still
+     * connect {@code k}.
+     *
+     * @param grid the bits of every cell of the grid
+     * @param stride the number of bits used per column (i.e., {@code rows + 1})
+     * @param k the length of the run
+     * @return {@code true} if there is a run of {@code k} clear cells and {@code false}
+     *     otherwise
+     */
+    boolean hasRunClear(Bitboard grid, int stride, int k) {
+        if (words.length == 1) {
+            long bits = grid.words[0] & ~words[0];
+            return hasRun(bits, 1, k)
+                || hasRun(bits, stride, k)
+                || hasRun(bits, stride - 1, k)
+                || hasRun(bits, stride + 1, k);
+        } else if (words.length == 2 && k == 4 && stride + 1 < 32) {
+            long clearLo = grid.words[0] & ~words[0];
+            long clearHi = grid.words[1] & ~words[1];
+            return hasFour(1, clearLo, clearHi)
+                || hasFour(stride, clearLo, clearHi)
+                || hasFour(stride - 1, clearLo, clearHi)
+                || hasFour(stride + 1, clearLo, clearHi);
+        } // if
+        for (int i = 0; i < words.length; i++) {
+            clear[i] = grid.words[i] & ~words[i];
+        } // for
+        return hasRun(clear, run, 1, k)
+            || hasRun(clear, run, stride, k)
+            || hasRun(clear, run, stride - 1, k)
+            || hasRun(clear, run, stride + 1, k);
+    } // hasRunClear
+
+    /**
+     * Return whether the one-word set {@code bits} contains {@code k} set bits that are each
+     * {@code shift} bits apart. The two passes of a run of four are unrolled.
+     *
+     * @param bits the bits to search
+     * @param shift the distance between neighbouring bits of a run ({@code shift > 0})
+     * @param k the length of the run
+     * @return {@code true} if there is a run of {@code k} and {@code false} otherwise
+     */
+    private static boolean hasRun(long bits, int shift, int k) {
+        if (k == 4 && shift < 32) {
+            // connect four, unrolled: pairs, then pairs of pairs
+            long pairs = bits & (bits >>> shift);
+            return (pairs & (pairs >>> (shift << 1))) != 0;
+        } // if
+        int length = 1;
+        while (length < k && bits != 0) {
+            int step = Math.min(length, k - length);
+            bits = step * shift < 64 ? bits & (bits >>> (step * shift)) : 0;
+            length += step;
+        } // while
+        return bits != 0;
+    } // hasRun
+
+    /**
+     * Return whether the 128-bit value {@code (hi, lo)} contains four set bits that are each
+     * {@code shift} bits apart. This is the general case unrolled for connect four on the
+     * classic grids that need two words.
+     *
+     * @param shift the distance between neighbouring bits of a run ({@code 0 < shift < 32})
+     * @param lo the low word
+     * @param hi the high word
+     * @return {@code true} if there is a run of four and {@code false} otherwise
+     */
+    private static boolean hasFour(int shift, long lo, long hi) {
+        long pairLo = lo & shiftRight(lo, hi, shift);
+        long pairHi = hi & (hi >>> shift);
+        int twice = shift << 1;
+        return (pairLo & shiftRight(pairLo, pairHi, twice)) != 0
+            || (pairHi & (pairHi >>> twice)) != 0;
+    } // hasFour
+
+    /**
+     * Return the low word of the 128-bit value {@code (hi, lo)} shifted right by {@code shift}.
+     *
+     * @param lo the low word
+     * @param hi the high word
+     * @param shift the shift distance ({@code 0 < shift < 64})
+     * @return the low word of the shifted value
+     */
+    private static long shiftRight(long lo, long hi, int shift) {
+        return (lo >>> shift) | (hi << (64 - shift));
+    } // shiftRight
+
+    /**
+     * Return whether {@code bits} contains {@code k} set bits that are each {@code shift} bits
+     * apart. Each pass ANDs the runs found so far with themselves shifted, which doubles their
+     * length until it reaches {@code k}, so a run of four takes two passes.
+     *
+     * @param bits the bits to search, which are not changed
+     * @param work scratch space as long as {@code bits}
+     * @param shift the distance between neighbouring bits of a run ({@code shift > 0})
+     * @param k the length of the run
+     * @return {@code true} if there is a run of {@code k} and {@code false} otherwise
+     */
+    private static boolean hasRun(long[] bits, long[] work, int shift, int k) {
+        System.arraycopy(bits, 0, work, 0, bits.length);
+        boolean any = false;
+        for (long word : work) {
+            any |= word != 0;
+        } // for
+        int length = 1;
+        while (length < k && any) {
+            int step = Math.min(length, k - length);
+            any = andShiftedRight(work, step * shift);
+            length += step;
+        } // while
+        return any;
+    } // hasRun
+
+    /**
+     * AND {@code x} with itself shifted right by {@code n} bits, in place, so that bit
+     * {@code i} stays set only if bit {@code i + n} is set too.
+     *
+     * @param x the words of the value, lowest first
+     * @param n the shift distance ({@code n > 0})
+     * @return {@code true} if any bit is still set and {@code false} otherwise
+     */
+    private static boolean andShiftedRight(long[] x, int n) {
+        int skip = n >>> 6;
+        int bits = n & 63;
+        long any = 0;
+        for (int i = 0; i < x.length; i++) {
+            // the words read are at or above i, so they have not been changed yet
+            long low = i + skip < x.length ? x[i + skip] : 0;
+            long high = i + skip + 1 < x.length ? x[i + skip + 1] : 0;
+            long shifted = bits == 0 ? low : (low >>> bits) | (high << (64 - bits));
+            x[i] &= shifted;
+            any |= x[i];
+        } // for
+        return any != 0;
+    } // andShiftedRight
+
+} // Bitboard
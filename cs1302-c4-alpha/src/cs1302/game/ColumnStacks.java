@@ -0,0 +1,124 @@
+package cs1302.game;
+
+import java.util.Arrays;
+
+/**
+ * {@code ColumnStacks} records the tokens of a sparse {@link cs1302.game.ConnectFour} grid as one
+ * stack per column. Tokens can only sit on top of each other, so a column is fully described by
+ * its height and by which player owns each of its tokens, one bit per token from the bottom up.
+ * A stack grows a word at a time as tokens are dropped, so the memory used grows with the
+ * number of tokens and the number of columns, never with the number of cells, and any cell can
+ * still be looked up in constant time.
+ *
+ * <p>
+ * Cells are addressed by column and height, where height {@code 0} is the bottom row. The
+ * heights of the columns are kept by the game and shared with this object.
+ */
+final class ColumnStacks {
+
+    // The four directions of a line as (height step, column step): up, right and the diagonals.
+    private static final int[][] DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+
+    private final int cols;      // number of grid columns
+    private final int[] height;  // number of tokens in each column, shared with the game
+    private final long[][] owners; // bit h of column c is set if player 1 owns height h, or null
+
+    /**
+     * Construct empty stacks for a grid of {@code height.length} columns.
+     *
+     * @param height the number of tokens in each column, kept up to date by the game
+     */
+    ColumnStacks(int[] height) {
+        this.cols = height.length;
+        this.height = height;
+        owners = new long[cols][];
+    } // ColumnStacks
+
+    /**
+     * Construct a copy of {@code other} that uses {@code height}, a copy of the heights of
+     * {@code other}'s game.
+     *
+     * @param other the stacks to copy
+     * @param height the number of tokens in each column of the copy's game
+     */
+    ColumnStacks(ColumnStacks other, int[] height) {
+        cols = other.cols;
+        this.height = height;
+        owners = new long[cols][];
+        for (int col = 0; col < cols; col++) {
+            if (other.owners[col] != null) {
+                owners[col] = other.owners[col].clone();
+            } // if
+        } // for
+    } // ColumnStacks
+
+    /**
+     * Return the player whose token is at height {@code h} of column {@code col}, or
+     * {@code -1} if the cell is empty or outside the grid.
+     *
+     * @param h the height of the cell
+     * @param col the column of the cell
+     * @return the owner of the cell, or {@code -1}
+     */
+    int owner(int h, int col) {
+        if (col < 0 || col >= cols || h < 0 || h >= height[col]) {
+            return -1;
+        } // if
+        return (int) (owners[col][h >>> 6] >>> h) & 1;
+    } // owner
+
+    /**
+     * Record {@code player}'s token on top of column {@code col}. The game increments the
+     * column's height afterwards.
+     *
+     * @param player the player
+     * @param col the column
+     */
+    void push(int player, int col) {
+        int h = height[col];
+        long[] stack = owners[col];
+        if (stack == null || (h >>> 6) == stack.length) {
+            stack = stack == null ? new long[1] : Arrays.copyOf(stack, stack.length * 2);
+            owners[col] = stack;
+        } // if
+        if (player == 1) {
+            stack[h >>> 6] |= 1L << h;
+        } else {
+            stack[h >>> 6] &= ~(1L << h);
+        } // if
+    } // push
+
+    /**
+     * Return whether {@code player} has {@code k} tokens in a line anywhere in the grid. Only
+     * tokens that start a run, because the cell before them in the direction is not
+     * {@code player}'s, are followed, so each token is followed at most {@code k} cells per
+     * direction.
+     *
+     * @param player the player
+     * @param k the length of the run
+     * @return {@code true} if there is a run of {@code k} and {@code false} otherwise
+     */
+    boolean hasRun(int player, int k) {
+        for (int col = 0; col < cols; col++) {
+            for (int h = 0; h < height[col]; h++) {
+                if (owner(h, col) != player) {
+                    continue;
+                } // if
+                for (int[] d : DIRECTIONS) {
+                    if (owner(h - d[0], col - d[1]) == player) {
+                        continue; // the run was followed from an earlier token
+                    } // if
+                    int length = 1;
+                    while (length < k && owner(h + length * d[0], col + length * d[1]) == player) {
+                        length++;
+                    } // while
+                    if (length == k) {
+                        return true;
+                    } // if
+                } // for
+            } // for
+        } // for
+        return false;
+    } // hasRun
+
+} // ColumnStacks
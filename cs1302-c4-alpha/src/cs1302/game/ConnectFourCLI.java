@@ -1,12 +1,21 @@
 package cs1302.game;
 
+import java.util.Random;
 import java.util.Scanner;
 import java.io.FileNotFoundException;
 import java.io.File;
+import javax.management.JMException;
 
 import cs1302.game.ConnectFour;
 import cs1302.gameutil.GamePhase;
 import cs1302.gameutil.Token;
+import cs1302.metrics.MetricsRegistry;
+import cs1302.solver.Analyzer;
+import cs1302.solver.MonteCarloPlayer;
+import cs1302.solver.MonteCarloSearch;
+import cs1302.solver.SearchPlayer;
+import cs1302.solver.Solver;
+import cs1302.solver.TranspositionTable;
 
 /**
  * A class to allow for CLI gameplay of a connect four game.
@@ -15,16 +24,98 @@ public class ConnectFourCLI {
 
     private static final Scanner STD_IN = new Scanner(System.in);
 
+    // The size of the transposition table of a computer player that searches, in MiB.
+    private static final int TABLE_MB = 64;
+
+    private static Analyzer hints; // scores the columns when a person asks for a hint, or null
+
     /**
      * Entry point to the {@link cs1302.game.ConnectFourDriver} program.
      * @param args the command-line arguments (not used)
      */
     public static void main(String[] args) {
+        try {
+            MetricsRegistry.getDefault().registerMBean(MetricsRegistry.OBJECT_NAME);
+        } catch (JMException jme) {
+            System.err.println("Metrics are not available over JMX: " + jme.getMessage());
+        } // try
         ConnectFourCLI.printWelcome();
         ConnectFour game = ConnectFourCLI.manualSetUp();
-        ConnectFourCLI.play(game);
+        game.setMetrics(new GameMetrics(MetricsRegistry.getDefault()));
+        Player first = ConnectFourCLI.choosePlayer(0);
+        Player second = ConnectFourCLI.choosePlayer(1);
+        long moveMillis = 0;
+        if (!(first instanceof HumanPlayer) || !(second instanceof HumanPlayer)) {
+            moveMillis = ConnectFourCLI.readMoveMillis();
+        } // if
+        ConnectFourCLI.play(game, first, second, moveMillis);
     } // main
 
+    /**
+     * Ask who plays one side of the game: a person at the keyboard, or a computer player that
+     * moves at random, searches with a {@link cs1302.solver.Solver}, or searches with a
+     * {@link cs1302.solver.MonteCarloSearch}. An empty answer picks a person.
+     *
+     * @param player the player ({@code 0} for first player and {@code 1} for second player)
+     * @return the player chosen
+     */
+    public static Player choosePlayer(int player) {
+        while (true) {
+            System.out.print("\nWho plays as Player " + player
+                             + "? (human, random, search, mcts): ");
+            switch (STD_IN.nextLine().trim().toLowerCase()) {
+            case "":
+            case "human":
+                return new HumanPlayer(STD_IN, ConnectFourCLI.hints());
+            case "random":
+                return new RandomPlayer(new Random());
+            case "search":
+                Solver solver = new Solver();
+                solver.setTable(new TranspositionTable(TABLE_MB));
+                return new SearchPlayer(solver);
+            case "mcts":
+                return new MonteCarloPlayer(new MonteCarloSearch(
+                    Runtime.getRuntime().availableProcessors(), System.nanoTime()));
+            default:
+                System.out.println("\n *** Unknown player, try again ***");
+                break;
+            } // switch
+        } // while
+    } // choosePlayer
+
+    /**
+     * Return the analyzer that people at the keyboard ask for hints, creating it on first use.
+     *
+     * @return the analyzer
+     */
+    private static Analyzer hints() {
+        if (hints == null) {
+            hints = new Analyzer(Runtime.getRuntime().availableProcessors());
+            hints.setTable(new TranspositionTable(TABLE_MB));
+        } // if
+        return hints;
+    } // hints
+
+    /**
+     * Ask how long a computer player may think about each move.
+     *
+     * @return the time per move in milliseconds, at least {@code 1}
+     */
+    public static long readMoveMillis() {
+        while (true) {
+            System.out.print("\nEnter the seconds a computer player may think per move: ");
+            try {
+                double seconds = Double.parseDouble(STD_IN.nextLine().trim());
+                if (seconds > 0) {
+                    return Math.max(1, (long) (seconds * 1000));
+                } // if
+            } catch (NumberFormatException nfe) {
+                // asked again below
+            } // try
+            System.out.println("\n *** The time must be a positive number, try again ***");
+        } // while
+    } // readMoveMillis
+
     /**
      * If there is not file path specified then the user manually sets up a connect four
      * game by specifiying the number of rows, columns, and colors for both player tokens.
@@ -109,41 +200,98 @@ public class ConnectFourCLI {
     } // printGameOver
 
     /**
-     * A method that plays a {@code ConnectFour} object. Switches between players to collect
-     * the column to drop a token in with the {@code dropToken method}. Method loops until
-     * {@code isLastDropConnectFour} returns true indicating the game is over.
+     * A method that plays a {@code ConnectFour} object between two people at the keyboard. It is
+     * the same as {@link #play(ConnectFour, Player, Player, long)} with a
+     * {@link cs1302.game.HumanPlayer} that can ask for hints on each side and no time limit.
      *
      * @param game a {@code ConnectFour} game to be played.
      */
     public static void play(ConnectFour game) {
-        int player = 0;
-        boolean isWon = false;
+        Player human = new HumanPlayer(STD_IN, ConnectFourCLI.hints());
+        ConnectFourCLI.play(game, human, human, 0);
+    } // play
+
+    /**
+     * A method that plays a {@code ConnectFour} object between any two players. Each player in
+     * turn is asked for a column with {@link cs1302.game.Player#chooseMove}, given a copy of the
+     * game and a deadline {@code moveMillis} from the start of its turn, and the column is
+     * dropped with the {@code tryDrop} method. Method loops until {@code isLastDropConnectFour}
+     * returns true indicating the game is over. Early draws are enabled, so a game that neither
+     * player can win ends before the grid is full. While a {@link cs1302.game.HumanPlayer} is
+     * typing a move against a computer player, the computer player
+     * {@linkplain cs1302.game.Player#ponder ponders} on a background thread. The time each
+     * player takes to choose a move is recorded in the
+     * {@linkplain cs1302.metrics.MetricsRegistry#getDefault default} registry as the histogram
+     * {@code cli.move.PLAYER.nanos}, where {@code PLAYER} is the player's {@code toString}.
+     *
+     * @param game a {@code ConnectFour} game to be played.
+     * @param first the player who moves first (Player 0)
+     * @param second the player who moves second (Player 1)
+     * @param moveMillis the time each player has per move in milliseconds, or {@code 0} for no
+     *     limit
+     * @throws IllegalStateException if a player chooses a column that cannot be played
+     */
+    public static void play(ConnectFour game, Player first, Player second, long moveMillis) {
+        Player[] players = {first, second};
+        game.setEarlyDraw(true); // stop asking for moves once nobody can win
 
         while (game.getPhase() != GamePhase.OVER) {
-            try {
-                ConnectFourCLI.printHeader();
-                System.out.println();
-                game.printGrid();
-                System.out.print("\nPlayer " + player + ", enter a column to drop your token: ");
-                int col = Integer.parseInt(STD_IN.nextLine().trim());
-                game.dropToken(player, col);
-                player = (player + 1) % 2;
-                isWon = game.isLastDropConnectFour();
-            } catch (IndexOutOfBoundsException e) {
-                System.out.println("\n *** Invalid column entry, try again ***");
-                e.printStackTrace();
-            } catch (IllegalStateException ise) {
-                System.out.println("\n *** Token cannot be dropped either because the column is "
-                                   + "full or the game is not in the READY or PLAYABLE phase");
-                ise.printStackTrace();
-            } // try
+            ConnectFourCLI.printHeader();
+            System.out.println();
+            game.printGrid();
+            int player = Player.toMove(game);
+            long deadline = moveMillis <= 0 ? Long.MAX_VALUE
+                : System.nanoTime() + moveMillis * 1_000_000L;
+            Player opponent = players[1 - player];
+            Thread ponderer = null;
+            if (players[player] instanceof HumanPlayer && !(opponent instanceof HumanPlayer)) {
+                // the computer thinks about its reply while the person types
+                ConnectFour view = new ConnectFour(game);
+                ponderer = new Thread(() -> opponent.ponder(view), "ponder");
+                ponderer.setDaemon(true);
+                ponderer.start();
+            } // if
+            long start = System.nanoTime();
+            int col = players[player].chooseMove(new ConnectFour(game), deadline);
+            MetricsRegistry.getDefault().histogram("cli.move." + players[player] + ".nanos")
+                .record(System.nanoTime() - start);
+            if (ponderer != null) {
+                ConnectFourCLI.stopPondering(opponent, ponderer);
+            } // if
+            DropResult result = game.tryDrop(player, col);
+            if (result != DropResult.OK) {
+                throw new IllegalStateException("Player " + player + " (" + players[player]
+                                                + ") chose column " + col + ": " + result);
+            } // if
+            System.out.printf("\nPlayer %d (%s) dropped a token into column %d.\n", player,
+                              players[player], col);
+            game.isLastDropConnectFour();
         } // while
         ConnectFourCLI.printGameOver();
         game.printGrid();
 
         if (game.isLastDropConnectFour()) {
-            player = (player + 1) % 2;
-            System.out.printf("\n\nCongratulations, player %s. You won!\n\n", player);
+            System.out.printf("\n\nCongratulations, player %s. You won!\n\n", game.getWinner());
+        } else if (game.isDraw()) {
+            System.out.println("\n\nThe game is a draw: neither player can connect four.\n");
         } // if
     } // play
+
+    /**
+     * Stop a player that is pondering and wait for its thread to finish. The player is asked
+     * again every few milliseconds, in case it began a new search after it was first asked.
+     *
+     * @param player the player that is pondering
+     * @param ponderer the thread it is pondering on
+     */
+    private static void stopPondering(Player player, Thread ponderer) {
+        try {
+            do {
+                player.stopPondering();
+                ponderer.join(10);
+            } while (ponderer.isAlive());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } // try
+    } // stopPondering
 } // ConnectFourCLI
@@ -1,8 +1,32 @@
 package cs1302.game;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
 import java.util.Scanner;
+import java.util.Set;
 import cs1302.gameutil.Token;
 import cs1302.gameutil.GamePhase;
+import cs1302.metrics.MetricsRegistry;
+import cs1302.sim.GameResult;
+import cs1302.sim.Tournament;
+import cs1302.sim.TournamentFormat;
+import cs1302.solver.Bound;
+import cs1302.solver.DiskCache;
+import cs1302.solver.OpeningBook;
+import cs1302.solver.OpeningBookGenerator;
+import cs1302.solver.ParallelSolver;
+import cs1302.solver.SearchResult;
+import cs1302.solver.Solver;
+import cs1302.solver.TranspositionTable;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 /**
  * A command-line program for testing {@link cs1302.game.ConnectFour}. Students should refer to
@@ -53,6 +77,21 @@ public class ConnectFourTester {
         testIsInBounds();
         testGamePlay();
         testFullBoard();
+        testWinDirections();
+        testTryDrop();
+        testUndoRedo();
+        testKeys();
+        testEarlyDraw();
+        testPlayers();
+        testSwissPairs();
+        testConnectN();
+        testSparse();
+        testParallelSolver();
+        testTranspositionTable();
+        testOpeningBook();
+        testDiskCache();
+        testMetrics();
+        testFlightRecorder();
         testNoStatic();
         System.out.println("Total Points Earned: " + totalPoints);
     } // main
@@ -651,10 +690,867 @@ public class ConnectFourTester {
         } // if
 
         // At this point, the board should be full with no winner present.
+        if (game.isDraw() && game.getWinner() == -1) {
+            pass("testFullBoard: isDraw correctly says the full board is a draw.", OTHER_POINTS);
+        } else {
+            fail("testFullBoard: isDraw should be true when the board is full", game);
+            return;
+        } // if
         testGameOver(game);
 
     } // testFullBoard
 
+    //----------------------------------------------------------------------------------------------
+    // TEST WIN DIRECTIONS
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Test that a connect four is detected in every direction. The drops are made on the right
+     * side of a 9x9 board so that the winning cells fall in the high word of the bitboards.
+     */
+    public static void testWinDirections() {
+        header("testWinDirections");
+        // vertical: player 0 stacks column 8 while player 1 plays column 7
+        testWin("vertical", new int[] {8, 7, 8, 7, 8, 7, 8});
+        // horizontal: player 0 fills the bottom of columns 5-8 while player 1 stacks above
+        testWin("horizontal", new int[] {5, 5, 6, 6, 7, 7, 8});
+        // rising diagonal from (8, 5) to (5, 8)
+        testWin("rising diagonal", new int[] {5, 6, 6, 7, 7, 8, 7, 8, 8, 0, 8});
+        // falling diagonal from (5, 5) to (8, 8)
+        testWin("falling diagonal", new int[] {8, 7, 7, 6, 6, 5, 6, 5, 5, 0, 5});
+    } // testWinDirections
+
+    /**
+     * Plays {@code cols} on a new 9x9 game, alternating players, and checks that only the last
+     * drop creates a connect four for the first player.
+     *
+     * @param name a name for the direction being tested
+     * @param cols the columns to drop into, in order
+     */
+    private static void testWin(String name, int[] cols) {
+        ConnectFour game = newValidGame(9, 9);
+        game.setPlayerTokens(Token.RED, Token.BLUE);
+        for (int i = 0; i < cols.length; i++) {
+            game.dropToken(i % 2, cols[i]);
+            boolean last = i == cols.length - 1;
+            if (game.isLastDropConnectFour() != last) {
+                fail("testWinDirections: wrong answer for the " + name + " win", game);
+                return;
+            } // if
+        } // for
+        if (game.checkConnectFour(Token.RED) && !game.checkConnectFour(Token.BLUE)) {
+            pass("testWinDirections: " + name + " connect four detected.", OTHER_POINTS);
+        } else {
+            fail("testWinDirections: checkConnectFour is wrong for the " + name + " win", game);
+        } // if
+        int[][] cells = game.getWinningCells();
+        boolean cellsOk = game.getWinner() == 0 && !game.isDraw() && cells.length >= 4;
+        for (int[] cell : cells) {
+            cellsOk = cellsOk && game.getTokenAt(cell[0], cell[1]) == Token.RED;
+        } // for
+        if (cellsOk) {
+            pass("testWinDirections: " + name + " winning cells reported.", OTHER_POINTS);
+        } else {
+            fail("testWinDirections: wrong winner or winning cells for the " + name + " win", game);
+        } // if
+    } // testWin
+
+    //----------------------------------------------------------------------------------------------
+    // TEST tryDrop AND legalMoves
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Test that {@code tryDrop} reports each kind of rejected drop without throwing and that
+     * {@code legalMoves} tracks full columns and the game phase.
+     */
+    public static void testTryDrop() {
+        header("testTryDrop");
+        ConnectFour game = newValidGame(6, 7);
+        expectDrop(game, 0, 0, DropResult.WRONG_PHASE);
+        game.setPlayerTokens(Token.RED, Token.BLUE);
+        if (game.legalMoves() != 0b1111111L) {
+            fail("testTryDrop: every column should be legal in a READY game", game);
+        } // if
+        expectDrop(game, 2, 0, DropResult.INVALID_PLAYER);
+        expectDrop(game, 0, -1, DropResult.INVALID_COLUMN);
+        expectDrop(game, 0, 7, DropResult.INVALID_COLUMN);
+        for (int i = 0; i < 6; i++) {
+            expectDrop(game, i % 2, 3, DropResult.OK);
+        } // for
+        expectDrop(game, 0, 3, DropResult.COLUMN_FULL);
+        if (game.legalMoves() == 0b1110111L) {
+            pass("testTryDrop: legalMoves excludes the full column.", OTHER_POINTS);
+        } else {
+            fail("testTryDrop: legalMoves should exclude the full column", game);
+        } // if
+    } // testTryDrop
+
+    /**
+     * Calls {@code tryDrop} and checks that it returns {@code expected}.
+     *
+     * @param game the game to drop into
+     * @param player the player dropping the token
+     * @param col the column to drop into
+     * @param expected the expected result
+     */
+    private static void expectDrop(ConnectFour game, int player, int col, DropResult expected) {
+        DropResult result = game.tryDrop(player, col);
+        if (result == expected) {
+            pass("testTryDrop: tryDrop(" + player + ", " + col + ") returned " + result + ".");
+        } else {
+            fail("testTryDrop: tryDrop(" + player + ", " + col + ") returned " + result
+                 + " instead of " + expected, game);
+        } // if
+    } // expectDrop
+
+    //----------------------------------------------------------------------------------------------
+    // TEST undo AND redo
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Test that {@code undo} and {@code redo} restore the grid, the last drop, the number of
+     * dropped tokens and the game phase, including across the end of a won game.
+     */
+    public static void testUndoRedo() {
+        header("testUndoRedo");
+        ConnectFour game = newValidGame(6, 7);
+        game.setPlayerTokens(Token.RED, Token.BLUE);
+        int[] cols = {3, 4, 3, 4, 3, 4, 3};
+        for (int i = 0; i < cols.length; i++) {
+            game.dropToken(i % 2, cols[i]);
+        } // for
+        game.isLastDropConnectFour();
+
+        game.undo();
+        if (game.getPhase() == GamePhase.PLAYABLE && game.getNumDropped() == 6
+            && game.getLastDropRow() == 3 && game.getLastDropCol() == 4
+            && game.getTokenAt(2, 3) == null && !game.isLastDropConnectFour()) {
+            pass("testUndoRedo: undo restored the position before the winning drop.",
+                 OTHER_POINTS);
+        } else {
+            fail("testUndoRedo: undo did not restore the position before the winning drop", game);
+        } // if
+
+        game.redo();
+        if (game.getPhase() == GamePhase.OVER && game.getNumDropped() == 7
+            && game.getLastDropRow() == 2 && game.getLastDropCol() == 3
+            && game.getTokenAt(2, 3) == Token.RED && game.isLastDropConnectFour()) {
+            pass("testUndoRedo: redo restored the winning drop.", OTHER_POINTS);
+        } else {
+            fail("testUndoRedo: redo did not restore the winning drop", game);
+        } // if
+
+        while (game.undo()) {
+            // take back every drop
+        } // while
+        if (game.getPhase() == GamePhase.READY && !game.undo() && game.legalMoves() == 0b1111111L) {
+            pass("testUndoRedo: undoing every drop restored the READY phase.", OTHER_POINTS);
+        } else {
+            fail("testUndoRedo: undoing every drop should restore the READY phase", game);
+        } // if
+
+        game.redo();
+        game.dropToken(1, 0);
+        if (!game.redo() && game.getNumDropped() == 2 && game.getTokenAt(5, 0) == Token.BLUE) {
+            pass("testUndoRedo: a new drop discarded the drops that could be redone.",
+                 OTHER_POINTS);
+        } else {
+            fail("testUndoRedo: a new drop should discard the drops that could be redone", game);
+        } // if
+    } // testUndoRedo
+
+    //----------------------------------------------------------------------------------------------
+    // TEST getKey AND getCanonicalKey
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Test that the position key ignores the order of the drops and is restored by
+     * {@code undo}, and that a position and its mirror image share a canonical key.
+     */
+    public static void testKeys() {
+        header("testKeys");
+        ConnectFour game = keyedGame(0, 1, 2, 6);
+        ConnectFour transposed = keyedGame(2, 6, 0, 1);
+        ConnectFour mirrored = keyedGame(6, 5, 4, 0);
+        ConnectFour other = keyedGame(0, 1, 6, 2);
+
+        if (game.getKey() == transposed.getKey() && game.getKey() != other.getKey()) {
+            pass("testKeys: the key depends on the position, not the order of the drops.",
+                 OTHER_POINTS);
+        } else {
+            fail("testKeys: the key should depend only on the position", game);
+        } // if
+
+        if (game.getKey() != mirrored.getKey()
+            && game.getCanonicalKey() == mirrored.getCanonicalKey()
+            && game.isMirrorCanonical() != mirrored.isMirrorCanonical()) {
+            pass("testKeys: a position and its mirror image share a canonical key.",
+                 OTHER_POINTS);
+        } else {
+            fail("testKeys: a position and its mirror image should share a canonical key", game);
+        } // if
+
+        long before = game.getKey();
+        game.dropToken(0, 3);
+        game.undo();
+        if (game.getKey() == before && game.getKey() != new ConnectFour(7, 7).getKey()
+            && keyedGame().getKey() != keyedGame(0).getKey()) {
+            pass("testKeys: undo restored the key.", OTHER_POINTS);
+        } else {
+            fail("testKeys: undo should restore the key", game);
+        } // if
+    } // testKeys
+
+    //----------------------------------------------------------------------------------------------
+    // TEST setEarlyDraw
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Fill a grid in the same drawn pattern as {@link #testFullBoard}, but with early draws
+     * enabled, and test that the game ends in a draw as soon as no line of four is open.
+     */
+    public static void testEarlyDraw() {
+        header("testEarlyDraw");
+        int player = 0;
+        ConnectFour game = newValidGame(6, 8);
+        game.setPlayerTokens(Token.RED, Token.BLUE);
+        game.setEarlyDraw(true);
+        if (game.hasOpenWindow(0) && game.hasOpenWindow(1)) {
+            pass("testEarlyDraw: both players start with open lines of four.", OTHER_POINTS);
+        } else {
+            fail("testEarlyDraw: both players should start with open lines of four", game);
+        } // if
+
+        for (int i = 0; i < 6 && game.getPhase() != GamePhase.OVER; i++) {
+            for (int j = 0; j < 8 && game.getPhase() != GamePhase.OVER; j++) {
+                game.dropToken(player, j);
+                game.isLastDropConnectFour();
+                player = (player + 1) % 2;
+            } // for
+            if ((i + 1) % 3 == 0) {
+                player = (player + 1) % 2;
+            } // if
+        } // for
+
+        if (game.getPhase() == GamePhase.OVER && game.isDraw() && game.getNumDropped() < 48
+            && !game.hasOpenWindow(0) && !game.hasOpenWindow(1)) {
+            pass("testEarlyDraw: the game ended in a draw before the grid was full.",
+                 OTHER_POINTS);
+        } else {
+            fail("testEarlyDraw: the game should end in a draw once no line of four is open",
+                 game);
+        } // if
+
+        game.undo();
+        if (game.getPhase() == GamePhase.PLAYABLE && !game.isDraw()
+            && (game.hasOpenWindow(0) || game.hasOpenWindow(1))) {
+            pass("testEarlyDraw: undo reopened a line of four.", OTHER_POINTS);
+        } else {
+            fail("testEarlyDraw: undo should reopen a line of four", game);
+        } // if
+
+        ConnectFour copy = new ConnectFour(game);
+        game.redo();
+        int col = game.getLastDropCol();
+        copy.dropToken(game.getTokenAt(game.getLastDropRow(), col) == Token.RED ? 0 : 1, col);
+        boolean ongoing = !copy.isLastDropConnectFour() && copy.getPhase() == GamePhase.PLAYABLE;
+        copy.setEarlyDraw(true);
+        if (ongoing && copy.isDraw() && !copy.hasOpenWindow(0) && !copy.hasOpenWindow(1)) {
+            pass("testEarlyDraw: a copy only ended early once early draws were turned on.",
+                 OTHER_POINTS);
+        } else {
+            fail("testEarlyDraw: copies should not inherit early draws", copy);
+        } // if
+    } // testEarlyDraw
+
+    //----------------------------------------------------------------------------------------------
+    // TEST Player
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Test that {@link Player#toMove} follows the CLI's turn order and that a
+     * {@link RandomPlayer} only chooses open columns.
+     */
+    public static void testPlayers() {
+        header("testPlayers");
+        if (Player.toMove(keyedGame()) == 0 && Player.toMove(keyedGame(3)) == 1
+            && Player.toMove(keyedGame(3, 4)) == 0) {
+            pass("testPlayers: toMove alternates starting with player 0.", OTHER_POINTS);
+        } else {
+            fail("testPlayers: toMove should alternate starting with player 0");
+        } // if
+
+        ConnectFour game = keyedGame(0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 1, 1, 2, 2, 2, 2, 2, 2,
+                                     4, 4, 4, 4, 4, 4, 5, 5, 5, 5, 5, 5, 6, 6, 6, 6, 6, 6);
+        Player random = new RandomPlayer(new Random(1302));
+        boolean legal = true;
+        for (int i = 0; i < 100; i++) {
+            legal &= random.chooseMove(game, Long.MAX_VALUE) == 3;
+        } // for
+        if (legal) {
+            pass("testPlayers: the random player only chose the open column.", OTHER_POINTS);
+        } else {
+            fail("testPlayers: the random player should only choose open columns", game);
+        } // if
+    } // testPlayers
+
+    /**
+     * Test that each round of a Swiss tournament pairs the agents as documented, replaying the
+     * pairing from the results of the earlier rounds, including rounds in which the top agent
+     * has already met everyone and meets the next agent below it again.
+     */
+    public static void testSwissPairs() {
+        header("testSwissPairs");
+        int agents = 4;
+        int rounds = 6;
+        Tournament tournament = new Tournament(6, 7, List.of("random", "random", "random",
+                                                             "random"));
+        tournament.setFormat(TournamentFormat.SWISS);
+        tournament.setRounds(rounds);
+        tournament.setThreads(1);
+        tournament.setSeed(1302);
+        List<GameResult> results = new ArrayList<>();
+        tournament.setListener(results::add);
+        try {
+            tournament.run();
+        } catch (InterruptedException ie) {
+            exceptionNotExpected(ie);
+            return;
+        } // try
+
+        double[] points = new double[agents];
+        boolean[][] met = new boolean[agents][agents];
+        boolean paired = results.size() == rounds * agents;
+        boolean fallback = false;
+        for (int round = 0; paired && round < rounds; round++) {
+            List<Integer> ranked = new ArrayList<>(List.of(0, 1, 2, 3));
+            ranked.sort(Comparator.comparingDouble((Integer i) -> -points[i]));
+            boolean[][] expected = new boolean[agents][agents];
+            while (!ranked.isEmpty()) {
+                int a = ranked.remove(0);
+                int pick = 0;
+                while (pick < ranked.size() && met[a][ranked.get(pick)]) {
+                    pick++;
+                } // while
+                fallback |= pick == ranked.size() && ranked.size() > 1;
+                int b = ranked.remove(pick == ranked.size() ? 0 : pick);
+                expected[a][b] = true;
+                expected[b][a] = true;
+            } // while
+            for (GameResult result : results.subList(round * agents, (round + 1) * agents)) {
+                paired &= expected[result.getFirst()][result.getSecond()];
+                points[result.getFirst()] += result.getScore();
+                points[result.getSecond()] += 1 - result.getScore();
+                met[result.getFirst()][result.getSecond()] = true;
+                met[result.getSecond()][result.getFirst()] = true;
+            } // for
+        } // for
+        if (paired && fallback) {
+            pass("testSwissPairs: agents that met everyone played the next agent below them.",
+                 OTHER_POINTS);
+        } else {
+            fail("testSwissPairs: the Swiss pairings did not follow the documented order");
+        } // if
+    } // testSwissPairs
+
+    /**
+     * Test that games of any size up to 64 by 64 can be made with any run length, and that wins
+     * are found on grids that span many bitboard words.
+     */
+    public static void testConnectN() {
+        header("testConnectN");
+        try {
+            new ConnectFour(0, 7, 4);
+            fail("testConnectN: a grid with no rows should not be allowed");
+        } catch (IllegalArgumentException iae) {
+            try {
+                new ConnectFour(6, 7, 8);
+                fail("testConnectN: a run longer than the grid should not be allowed");
+            } catch (IllegalArgumentException iae2) {
+                pass("testConnectN: unsupported sizes and run lengths were rejected.",
+                     OTHER_POINTS);
+            } // try
+        } // try
+
+        ConnectFour game = new ConnectFour(64, 64, 6);
+        game.setPlayerTokens(Token.RED, Token.BLUE);
+        for (int col = 58; col < 63; col++) {
+            game.dropToken(0, col);
+            game.dropToken(1, col);
+        } // for
+        boolean before = !game.isLastDropConnectFour() && game.isWinningDrop(0, 63)
+            && !game.isWinningDrop(1, 63) && !game.isWinningDrop(1, 57);
+        game.dropToken(0, 63);
+        if (before && game.getRunLength() == 6 && game.isLastDropConnectFour()
+            && game.getWinner() == 0 && game.getWinningCells().length == 6
+            && game.checkConnectFour(Token.RED) && !game.checkConnectFour(Token.BLUE)
+            && game.getPhase() == GamePhase.OVER) {
+            pass("testConnectN: a run of six was found at the edge of a 64 by 64 grid.",
+                 OTHER_POINTS);
+        } else {
+            fail("testConnectN: a run of six should win a 64 by 64 connect-6 game");
+        } // if
+
+        if (new ConnectFour(6, 7, 4).getKey() == new ConnectFour(6, 7).getKey()
+            && new ConnectFour(6, 7, 5).getKey() != new ConnectFour(6, 7).getKey()) {
+            pass("testConnectN: only the run length changes the key of a connect four grid.",
+                 OTHER_POINTS);
+        } else {
+            fail("testConnectN: the run length should be part of the key");
+        } // if
+    } // testConnectN
+
+    /**
+     * Test that a sparse grid far larger than a bitboard can hold finds wins, looks up tokens
+     * anywhere in the grid, and undoes drops like a dense one.
+     */
+    public static void testSparse() {
+        header("testSparse");
+        ConnectFour game = ConnectFour.sparse(5000, 5000, 5);
+        game.setPlayerTokens(Token.RED, Token.BLUE);
+        for (int col = 4995; col < 4999; col++) {
+            game.dropToken(0, col);
+            game.dropToken(1, col);
+        } // for
+        boolean before = !game.isLastDropConnectFour() && game.isWinningDrop(0, 4999)
+            && game.isWinningDrop(0, 4994) && !game.isWinningDrop(1, 4999)
+            && game.hasOpenWindow(1) && !game.checkConnectFour(Token.RED);
+        game.dropToken(0, 4999);
+        if (before && game.isLastDropConnectFour() && game.getWinner() == 0
+            && game.getWinningCells().length == 5 && game.checkConnectFour(Token.RED)
+            && game.getTokenAt(4999, 4999) == Token.RED && game.getTokenAt(4998, 4995) == Token.BLUE
+            && game.getTokenAt(0, 0) == null && game.getTokenAt(4998, 4999) == null) {
+            pass("testSparse: a run of five was found in a corner of a 5000 by 5000 grid.",
+                 OTHER_POINTS);
+        } else {
+            fail("testSparse: a run of five should win a sparse 5000 by 5000 game");
+        } // if
+
+        ConnectFour copy = new ConnectFour(game);
+        game.undo();
+        if (game.getPhase() == GamePhase.PLAYABLE && game.isColumnOpen(4999)
+            && game.getTokenAt(4999, 4999) == null && copy.getTokenAt(4999, 4999) == Token.RED
+            && !game.isColumnOpen(5000) && !copy.isColumnOpen(4999)) {
+            pass("testSparse: undo restored the sparse grid without changing its copy.",
+                 OTHER_POINTS);
+        } else {
+            fail("testSparse: undo should only change the sparse grid it is called on");
+        } // if
+
+        try {
+            game.legalMoves();
+            fail("testSparse: a bitmask cannot hold the open columns of 5000 columns");
+        } catch (IllegalStateException ise) {
+            pass("testSparse: legalMoves refused a grid wider than a bitmask.", OTHER_POINTS);
+        } // try
+    } // testSparse
+
+    /**
+     * Test that a {@link cs1302.solver.ParallelSolver} with 1, 2 and 4 threads solves a few
+     * fixed positions exactly as the sequential {@link cs1302.solver.Solver} does: the same
+     * scores and bounds, and without a transposition table the same best columns. A table
+     * shared by the threads may change which of two equally good columns is found first, so
+     * with a table only the scores are compared, as they are for a sequential solver with one.
+     */
+    public static void testParallelSolver() {
+        header("testParallelSolver");
+        String[] positions = {
+            "46130506503260001454", "5425650450534410136", "556050630333213463",
+            "1211525221026001", "3062615201361602",
+        };
+        for (String moves : positions) {
+            ConnectFour game = keyedGame(moves.chars().map(c -> c - '0').toArray());
+            SearchResult base = new Solver().solve(game);
+            Solver tabled = new Solver();
+            tabled.setTable(new TranspositionTable(16));
+            SearchResult result = tabled.solve(game);
+            if (result.getScore() != base.getScore() || result.getBound() != base.getBound()) {
+                fail("testParallelSolver: a table changed the score of " + moves, game);
+            } // if
+            for (int threads = 1; threads <= 4; threads *= 2) {
+                for (int shared = 0; shared < 2; shared++) {
+                    ParallelSolver parallel = new ParallelSolver(threads);
+                    if (shared == 1) {
+                        parallel.setTable(new TranspositionTable(16));
+                    } // if
+                    result = parallel.solve(game);
+                    parallel.shutdown();
+                    if (result.getScore() != base.getScore() || result.getBound() != base.getBound()
+                        || (shared == 0 && result.getBestMove() != base.getBestMove())) {
+                        fail("testParallelSolver: " + threads + " threads" + (shared == 1
+                             ? " sharing a table" : "") + " found " + result + " for " + moves
+                             + ", not " + base, game);
+                    } // if
+                } // for
+            } // for
+        } // for
+        pass("testParallelSolver: 1, 2 and 4 threads matched the sequential search.",
+             OTHER_POINTS);
+    } // testParallelSolver
+
+    /**
+     * Test a 1 MB {@link cs1302.solver.TranspositionTable}, which has {@code 2^15} buckets, so
+     * keys that agree in their low 15 bits share a bucket. Entries must come back with the
+     * extreme scores, depth and column they were stored with; a probe for another key in the
+     * same bucket must miss; the first entry of a bucket must keep a deeper result of the
+     * current search while the second takes the rest, until {@code newSearch} makes it stale;
+     * and the fill level and hit rate must follow the stores and probes.
+     */
+    public static void testTranspositionTable() {
+        header("testTranspositionTable");
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(1, 127, Bound.EXACT, TranspositionTable.PROVEN, 63);
+        table.store(2, -127, Bound.UPPER, 0, -1);
+        table.store(3, 0, Bound.LOWER, 17, 0);
+        long high = table.probe(1);
+        long low = table.probe(2);
+        long middle = table.probe(3);
+        if (TranspositionTable.score(high) == 127 && TranspositionTable.bound(high) == Bound.EXACT
+            && TranspositionTable.depth(high) == TranspositionTable.PROVEN
+            && TranspositionTable.move(high) == 63
+            && TranspositionTable.score(low) == -127 && TranspositionTable.bound(low) == Bound.UPPER
+            && TranspositionTable.depth(low) == 0 && TranspositionTable.move(low) == -1
+            && TranspositionTable.bound(middle) == Bound.LOWER
+            && TranspositionTable.depth(middle) == 17 && TranspositionTable.move(middle) == 0) {
+            pass("testTranspositionTable: entries kept their extreme scores, depths and columns.",
+                 OTHER_POINTS);
+        } else {
+            fail("testTranspositionTable: an entry did not round-trip through the table");
+        } // if
+
+        long collisions = table.getCollisions();
+        if (table.probe(1 + (1L << 32)) == 0 && table.getCollisions() == collisions + 1) {
+            pass("testTranspositionTable: another key in the same bucket was a miss.",
+                 OTHER_POINTS);
+        } else {
+            fail("testTranspositionTable: a probe accepted the entry of another key");
+        } // if
+
+        long[] keys = new long[5];
+        for (int i = 1; i < keys.length; i++) {
+            keys[i] = 9 + ((long) i << 20); // all in bucket 9
+        } // for
+        table.store(keys[1], 5, Bound.EXACT, 20, 3);
+        table.store(keys[2], 5, Bound.EXACT, 10, 3);
+        boolean kept = table.probe(keys[1]) != 0 && table.probe(keys[2]) != 0;
+        table.store(keys[3], 5, Bound.EXACT, 5, 3);
+        if (kept && table.probe(keys[1]) != 0 && table.probe(keys[2]) == 0
+            && table.probe(keys[3]) != 0) {
+            pass("testTranspositionTable: the deeper entry stayed and the second was replaced.",
+                 OTHER_POINTS);
+        } else {
+            fail("testTranspositionTable: a shallower result replaced a deeper one");
+        } // if
+
+        table.newSearch();
+        table.store(keys[4], 5, Bound.EXACT, 1, 3);
+        if (table.probe(keys[1]) == 0 && table.probe(keys[4]) != 0) {
+            pass("testTranspositionTable: an entry of an earlier search was replaced.",
+                 OTHER_POINTS);
+        } else {
+            fail("testTranspositionTable: a stale entry was kept after newSearch");
+        } // if
+
+        table = new TranspositionTable(1);
+        boolean empty = table.getFillLevel() == 0 && table.getHitRate() == 0;
+        for (int key = 0; key < 1000; key++) {
+            table.store(key, 1, Bound.EXACT, 1, 1);
+        } // for
+        for (int key = 0; key < 2000; key++) {
+            table.probe(key);
+        } // for
+        if (empty && table.getFillLevel() == 1000.0 / table.getCapacity()
+            && table.getHitRate() == 0.5 && table.getProbes() == 2000) {
+            pass("testTranspositionTable: the fill level and hit rate followed the table.",
+                 OTHER_POINTS);
+        } else {
+            fail("testTranspositionTable: expected the table to be " + 1000.0
+                 / table.getCapacity() + " full with half the probes hit, not " + table);
+        } // if
+    } // testTranspositionTable
+
+    /**
+     * Test an {@link cs1302.solver.OpeningBook} written by
+     * {@link cs1302.solver.OpeningBookGenerator} to a temporary file for the two plies after a
+     * fixed 20-ply opening, and opened again. Every position of those plies that nobody has won
+     * must be in the book with the score and bound that {@link cs1302.solver.Solver#solve}
+     * finds; its mirror image must find the same entry, with the best column mirrored; and the
+     * book must not fit a grid of another size or run length.
+     */
+    public static void testOpeningBook() {
+        header("testOpeningBook");
+        String opening = "46130506503260001454";
+        OpeningBook book;
+        try {
+            Path file = Files.createTempFile("c4", ".book");
+            OpeningBookGenerator.main(new String[] {
+                "6", "7", "22", file.toString(), "threads=1", "table=16", "moves=" + opening,
+            });
+            book = OpeningBook.open(file);
+            Files.delete(file);
+        } catch (IOException | InterruptedException e) {
+            exceptionNotExpected(e);
+            return;
+        } // try
+
+        List<String> lines = new ArrayList<>(List.of(opening));
+        for (int i = 0; i < lines.size(); i++) {
+            String moves = lines.get(i);
+            ConnectFour game = keyedGame(moves.chars().map(c -> c - '0').toArray());
+            for (int col = 0; moves.length() < 22 && col < game.getCols(); col++) {
+                if (game.tryDrop(moves.length() % 2, col) == DropResult.OK) {
+                    if (game.getWinner() == -1 && game.legalMoves() != 0) {
+                        lines.add(moves + col);
+                    } // if
+                    game.undo();
+                } // if
+            } // for
+        } // for
+
+        Set<Long> keys = new HashSet<>();
+        for (String moves : lines) {
+            ConnectFour game = keyedGame(moves.chars().map(c -> c - '0').toArray());
+            ConnectFour mirror = keyedGame(moves.chars().map(c -> '6' - c).toArray());
+            keys.add(game.getCanonicalKey());
+            SearchResult solved = new Solver().solve(game);
+            SearchResult found = book.lookup(game);
+            SearchResult mirrored = book.lookup(mirror);
+            if (found == null || found.getScore() != solved.getScore()
+                || found.getBound() != solved.getBound()) {
+                fail("testOpeningBook: the book has " + found + " for " + moves + ", not "
+                     + solved, game);
+            } else if (mirrored == null || mirrored.getScore() != found.getScore()
+                       || mirrored.getBestMove() != (found.getBestMove() < 0 ? -1
+                                                     : 6 - found.getBestMove())) {
+                fail("testOpeningBook: the mirror image of " + moves + " has " + mirrored
+                     + ", not " + found, mirror);
+            } // if
+        } // for
+        if (keys.size() == book.size()) {
+            pass("testOpeningBook: " + keys.size() + " positions and their mirror images were "
+                 + "found with their solved scores.", OTHER_POINTS);
+        } else {
+            fail("testOpeningBook: expected " + keys.size() + " positions, not " + book);
+        } // if
+
+        if (book.fits(new ConnectFour(6, 7)) && book.fits(new ConnectFour(6, 7, 4))
+            && !book.fits(new ConnectFour(6, 8)) && !book.fits(new ConnectFour(7, 7))
+            && !book.fits(new ConnectFour(6, 7, 5))) {
+            pass("testOpeningBook: the book only fits 6 by 7 connect four.", OTHER_POINTS);
+        } else {
+            fail("testOpeningBook: the book fits a grid of another size or run length");
+        } // if
+    } // testOpeningBook
+
+    /**
+     * Test {@link cs1302.solver.DiskCache}s of 1 MB in temporary files. Stored results must
+     * be found again after the cache is closed and reopened, and storing a key again must
+     * replace its record. A cache that is stored twice its capacity must hold the most recent
+     * results, before and after reopening, without going over its capacity. A record that is
+     * hit before the clock hand comes around again must survive that sweep, but not the next.
+     */
+    public static void testDiskCache() {
+        header("testDiskCache");
+        Random random = new Random(1302);
+        try {
+            Path file = Files.createTempFile("c4", ".cache");
+            long[] keys = new long[100];
+            try (DiskCache cache = DiskCache.open(file, 1)) {
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = random.nextLong();
+                    cache.store(keys[i], keys[i] | 1);
+                } // for
+                cache.flush();
+            } // try
+            try (DiskCache cache = DiskCache.open(file, 1)) {
+                boolean found = cache.size() == keys.length;
+                for (long key : keys) {
+                    found &= cache.probe(key) == (key | 1);
+                } // for
+                cache.store(keys[0], 7);
+                cache.flush();
+                if (!found) {
+                    fail("testDiskCache: the reopened cache lost results: " + cache);
+                } else if (cache.probe(keys[0]) != 7 || cache.size() != keys.length) {
+                    fail("testDiskCache: storing a key again did not replace it: " + cache);
+                } // if
+            } // try
+            Files.delete(file);
+            pass("testDiskCache: a reopened cache found its results and replaced one.",
+                 OTHER_POINTS);
+
+            file = Files.createTempFile("c4", ".cache");
+            int capacity;
+            try (DiskCache cache = DiskCache.open(file, 1)) {
+                capacity = cache.getCapacity();
+                keys = new long[2 * capacity + 7];
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = random.nextLong();
+                    cache.store(keys[i], keys[i] | 1);
+                    if (i % (capacity / 2) == 0) {
+                        cache.flush(); // the queue holds fewer records than the cache
+                    } // if
+                } // for
+                cache.flush();
+                if (cache.size() != capacity || !holdsLast(cache, keys, capacity)) {
+                    fail("testDiskCache: an overfilled cache should hold its last " + capacity
+                         + " results: " + cache);
+                } // if
+            } // try
+            try (DiskCache cache = DiskCache.open(file, 1)) {
+                if (cache.size() != capacity || !holdsLast(cache, keys, capacity)) {
+                    fail("testDiskCache: the reopened overfilled cache lost results: " + cache);
+                } // if
+            } // try
+            Files.delete(file);
+            pass("testDiskCache: an overfilled cache kept its most recent results.",
+                 OTHER_POINTS);
+
+            file = Files.createTempFile("c4", ".cache");
+            try (DiskCache cache = DiskCache.open(file, 1)) {
+                for (int i = 0; i < capacity; i++) {
+                    keys[i] = random.nextLong();
+                    cache.store(keys[i], keys[i] | 1);
+                } // for
+                cache.flush();
+                cache.probe(keys[0]);
+                for (int i = 1; i < capacity; i++) {
+                    cache.store(random.nextLong(), 1);
+                } // for
+                cache.flush();
+                if (cache.probe(keys[1]) != 0 || cache.probe(keys[0]) == 0) {
+                    fail("testDiskCache: a hit record should survive the sweep: " + cache);
+                } // if
+                // the probe above is the last hit, so the record goes one sweep after it
+                for (int i = 0; i < capacity; i++) {
+                    cache.store(random.nextLong(), 1);
+                } // for
+                cache.flush();
+                if (cache.probe(keys[0]) != 0) {
+                    fail("testDiskCache: a record should only get one second chance: " + cache);
+                } // if
+            } // try
+            Files.delete(file);
+            pass("testDiskCache: a record that was hit survived the clock hand once.",
+                 OTHER_POINTS);
+        } catch (IOException ioe) {
+            exceptionNotExpected(ioe);
+        } // try
+    } // testDiskCache
+
+    /**
+     * Return whether {@code cache} holds the last {@code count} of {@code keys}, each stored
+     * with the entry {@code key | 1}, and not the one before them.
+     *
+     * @param cache the cache
+     * @param keys the keys in the order they were stored
+     * @param count the number of keys the cache should hold
+     * @return {@code true} if it holds them and {@code false} otherwise
+     */
+    private static boolean holdsLast(DiskCache cache, long[] keys, int count) {
+        for (int i = keys.length - count; i < keys.length; i++) {
+            if (cache.probe(keys[i]) != (keys[i] | 1)) {
+                return false;
+            } // if
+        } // for
+        return cache.probe(keys[keys.length - count - 1]) == 0;
+    } // holdsLast
+
+    /**
+     * Test that a game given a {@link GameMetrics} counts its drops, times its drops and win
+     * checks, and counts its phase changes, including the ones made by {@code undo}.
+     */
+    public static void testMetrics() {
+        header("testMetrics");
+        GameMetrics metrics = new GameMetrics(new MetricsRegistry());
+        ConnectFour game = newValidGame(6, 7);
+        game.setMetrics(metrics);
+        game.setPlayerTokens(Token.RED, Token.BLUE);
+        int[] cols = {3, 4, 3, 4, 3, 4, 3};
+        for (int i = 0; i < cols.length; i++) {
+            game.dropToken(i % 2, cols[i]);
+            game.isLastDropConnectFour();
+        } // for
+        game.tryDrop(0, 7);
+        if (metrics.getMoves() == 7 && metrics.getDropLatency().getCount() == 7
+            && metrics.getWinCheckLatency().getCount() == 7) {
+            pass("testMetrics: the drops and win checks were counted and timed.", OTHER_POINTS);
+        } else {
+            fail("testMetrics: expected 7 drops and win checks, not " + metrics.getMoves(), game);
+        } // if
+
+        game.undo();
+        if (metrics.getTransitions(GamePhase.NEW, GamePhase.READY) == 1
+            && metrics.getTransitions(GamePhase.READY, GamePhase.PLAYABLE) == 1
+            && metrics.getTransitions(GamePhase.PLAYABLE, GamePhase.OVER) == 1
+            && metrics.getTransitions(GamePhase.OVER, GamePhase.PLAYABLE) == 1
+            && metrics.getPhaseNanos(GamePhase.OVER) >= 0) {
+            pass("testMetrics: the phase changes were counted.", OTHER_POINTS);
+        } else {
+            fail("testMetrics: the phase changes were not counted as expected", game);
+        } // if
+    } // testMetrics
+
+    /**
+     * Test that a flight recording that enables the drop and win check events records one
+     * event for every drop and check, including a rejected drop.
+     */
+    public static void testFlightRecorder() {
+        header("testFlightRecorder");
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable("cs1302.c4.Drop");
+            recording.enable("cs1302.c4.WinCheck");
+            recording.start();
+            ConnectFour game = keyedGame(3, 4);
+            game.isLastDropConnectFour();
+            game.tryDrop(0, 7);
+            recording.stop();
+            Path file = Files.createTempFile("c4", ".jfr");
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+            Files.delete(file);
+        } catch (IOException ioe) {
+            exceptionNotExpected(ioe);
+            return;
+        } // try
+
+        int drops = 0;
+        int rejected = 0;
+        int checks = 0;
+        for (RecordedEvent event : events) {
+            String name = event.getEventType().getName();
+            if (name.equals("cs1302.c4.Drop")) {
+                drops++;
+                rejected += event.getString("result").equals("INVALID_COLUMN") ? 1 : 0;
+            } else if (name.equals("cs1302.c4.WinCheck") && event.getInt("column") == 4) {
+                checks++;
+            } // if
+        } // for
+        if (drops == 3 && rejected == 1 && checks == 1) {
+            pass("testFlightRecorder: the drops and the win check were recorded.", OTHER_POINTS);
+        } else {
+            fail("testFlightRecorder: expected 3 drops and 1 win check, not " + drops + " and "
+                 + checks);
+        } // if
+    } // testFlightRecorder
+
+    /**
+     * Return a 6 by 7 game after the players, starting with player {@code 0}, drop tokens in
+     * the specified columns.
+     *
+     * @param cols the columns to drop tokens in
+     * @return the game
+     */
+    private static ConnectFour keyedGame(int... cols) {
+        ConnectFour game = newValidGame(6, 7);
+        game.setPlayerTokens(Token.RED, Token.BLUE);
+        for (int i = 0; i < cols.length; i++) {
+            game.dropToken(i % 2, cols[i]);
+        } // for
+        return game;
+    } // keyedGame
+
     /**
      * Returns a new {@code ConnectFour} object if {@code rows} and {@code cols} are valid.
      * Otherwise, the method returns {@code null}.
@@ -0,0 +1,45 @@
+package cs1302.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for one call of {@link cs1302.game.ConnectFour#tryDrop}, and so
+ * of {@link cs1302.game.ConnectFour#dropToken}, including drops that were rejected. Solvers drop
+ * millions of tokens per second, so the event is disabled unless a recording's settings enable
+ * {@code cs1302.c4.Drop}.
+ */
+@Name("cs1302.c4.Drop")
+@Label("Drop")
+@Category({"Connect Four", "Game"})
+@Description("A token dropped into a column, or a drop that was rejected")
+@Enabled(false)
+@StackTrace(false)
+final class DropEvent extends Event {
+
+    @Label("Player")
+    int player;
+
+    @Label("Column")
+    int column;
+
+    @Label("Row")
+    @Description("The row the token landed in, or -1 if the drop was rejected")
+    int row;
+
+    @Label("Tokens Dropped")
+    int dropped;
+
+    @Label("Phase")
+    @Description("The game phase after the drop")
+    String phase;
+
+    @Label("Result")
+    String result;
+
+} // DropEvent
@@ -0,0 +1,25 @@
+package cs1302.game;
+
+/**
+ * The result of an attempt to drop a token with {@link cs1302.game.ConnectFour#tryDrop}. Every
+ * rejected drop has its own constant, so callers that probe moves can tell why a drop failed
+ * without catching an exception.
+ */
+public enum DropResult {
+
+    /** The token was dropped. */
+    OK,
+
+    /** The player was neither {@code 0} nor {@code 1}. */
+    INVALID_PLAYER,
+
+    /** The game was not in the {@code READY} or {@code PLAYABLE} phase. */
+    WRONG_PHASE,
+
+    /** The column index was outside the grid. */
+    INVALID_COLUMN,
+
+    /** The column was already full. */
+    COLUMN_FULL;
+
+} // DropResult
@@ -0,0 +1,158 @@
+package cs1302.game;
+
+import cs1302.gameutil.GamePhase;
+import cs1302.metrics.Histogram;
+import cs1302.metrics.MetricsRegistry;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics a {@link cs1302.game.ConnectFour} game records once it is
+ * {@linkplain cs1302.game.ConnectFour#setMetrics given} a {@code GameMetrics}: the number of
+ * drops, the latency of each drop, win check and rendering of the grid, the time spent in each
+ * {@link cs1302.gameutil.GamePhase}, and the number of changes from each phase to each other.
+ * The metrics live in a {@link cs1302.metrics.MetricsRegistry} under the names below, so all
+ * the games that record into one registry add up.
+ *
+ * <ul>
+ * <li>{@code game.moves}: drops that were played</li>
+ * <li>{@code game.drop.nanos}: latency of {@link cs1302.game.ConnectFour#tryDrop} and
+ *     {@link cs1302.game.ConnectFour#dropToken}</li>
+ * <li>{@code game.winCheck.nanos}: latency of
+ *     {@link cs1302.game.ConnectFour#isLastDropConnectFour}</li>
+ * <li>{@code game.render.nanos}: latency of {@link cs1302.game.ConnectFour#printGrid}</li>
+ * <li>{@code game.phase.PHASE.nanos}: time spent in {@code PHASE}, counted when it is left</li>
+ * <li>{@code game.transition.FROM.TO}: changes of phase from {@code FROM} to {@code TO}</li>
+ * </ul>
+ */
+public class GameMetrics {
+
+    private static final GamePhase[] PHASES = GamePhase.values();
+
+    private final LongAdder moves;            // drops that were played
+    private final Histogram drop;             // latency of each drop
+    private final Histogram winCheck;         // latency of each win check
+    private final Histogram render;           // latency of each rendering
+    private final LongAdder[] phaseNanos;     // time spent in each phase, by ordinal
+    private final LongAdder[][] transitions;  // phase changes, by ordinal of from and to
+
+    /**
+     * Construct a {@code GameMetrics} that records into {@code registry}.
+     *
+     * @param registry the registry
+     */
+    public GameMetrics(MetricsRegistry registry) {
+        moves = registry.counter("game.moves");
+        drop = registry.histogram("game.drop.nanos");
+        winCheck = registry.histogram("game.winCheck.nanos");
+        render = registry.histogram("game.render.nanos");
+        phaseNanos = new LongAdder[PHASES.length];
+        transitions = new LongAdder[PHASES.length][PHASES.length];
+        for (GamePhase from : PHASES) {
+            phaseNanos[from.ordinal()] = registry.counter("game.phase." + from + ".nanos");
+            for (GamePhase to : PHASES) {
+                if (from != to) {
+                    transitions[from.ordinal()][to.ordinal()] =
+                        registry.counter("game.transition." + from + "." + to);
+                } // if
+            } // for
+        } // for
+    } // GameMetrics
+
+    /**
+     * Return the number of drops that were played.
+     *
+     * @return the number of drops
+     */
+    public long getMoves() {
+        return moves.sum();
+    } // getMoves
+
+    /**
+     * Return the latencies of the drops, in nanoseconds.
+     *
+     * @return the histogram
+     */
+    public Histogram getDropLatency() {
+        return drop;
+    } // getDropLatency
+
+    /**
+     * Return the latencies of the win checks, in nanoseconds.
+     *
+     * @return the histogram
+     */
+    public Histogram getWinCheckLatency() {
+        return winCheck;
+    } // getWinCheckLatency
+
+    /**
+     * Return the latencies of the renderings of the grid, in nanoseconds.
+     *
+     * @return the histogram
+     */
+    public Histogram getRenderLatency() {
+        return render;
+    } // getRenderLatency
+
+    /**
+     * Return the time spent in {@code phase} by the games that have since left it.
+     *
+     * @param phase the phase
+     * @return the time, in nanoseconds
+     */
+    public long getPhaseNanos(GamePhase phase) {
+        return phaseNanos[phase.ordinal()].sum();
+    } // getPhaseNanos
+
+    /**
+     * Return the number of changes of phase from {@code from} to {@code to}.
+     *
+     * @param from the phase left
+     * @param to the phase entered
+     * @return the number of changes, which is {@code 0} if the phases are the same
+     */
+    public long getTransitions(GamePhase from, GamePhase to) {
+        return from == to ? 0 : transitions[from.ordinal()][to.ordinal()].sum();
+    } // getTransitions
+
+    /**
+     * Record a drop that was played.
+     *
+     * @param nanos the latency of the drop
+     */
+    void recordDrop(long nanos) {
+        moves.increment();
+        drop.record(nanos);
+    } // recordDrop
+
+    /**
+     * Record a win check.
+     *
+     * @param nanos the latency of the check
+     */
+    void recordWinCheck(long nanos) {
+        winCheck.record(nanos);
+    } // recordWinCheck
+
+    /**
+     * Record a rendering of the grid.
+     *
+     * @param nanos the latency of the rendering
+     */
+    void recordRender(long nanos) {
+        render.record(nanos);
+    } // recordRender
+
+    /**
+     * Record a change of phase.
+     *
+     * @param from the phase left
+     * @param to the phase entered
+     * @param nanos the time spent in {@code from}
+     */
+    void recordTransition(GamePhase from, GamePhase to, long nanos) {
+        phaseNanos[from.ordinal()].add(nanos);
+        transitions[from.ordinal()][to.ordinal()].increment();
+    } // recordTransition
+
+} // GameMetrics
@@ -0,0 +1,48 @@
+package cs1302.game;
+
+/**
+ * A {@code HintProvider} scores the columns of a {@link cs1302.game.ConnectFour} position for a
+ * {@link cs1302.game.HumanPlayer} that asks for a hint. The scores are computed by the search
+ * code, which depends on this package; the player only sees this interface, so this package
+ * does not depend on the search code. The driver that builds the players passes one in.
+ */
+public interface HintProvider {
+
+    /**
+     * Score every legal column of {@code view}, passing each score to {@code listener} as soon
+     * as it is found and improving the scores until they are exact or {@link #stop} is called.
+     * This method is called on a background thread and may report from several threads at once.
+     *
+     * @param view the position to score, which this provider may keep and change freely
+     * @param listener told about each new score
+     */
+    void hint(ConnectFour view, Listener listener);
+
+    /**
+     * Make a call to {@link #hint} in progress return soon. This method is called from another
+     * thread than {@code hint}, and may be called again until {@code hint} has returned,
+     * including before it has started.
+     */
+    void stop();
+
+    /**
+     * Told about the scores found by a {@link cs1302.game.HintProvider}.
+     */
+    @FunctionalInterface
+    interface Listener {
+
+        /**
+         * Accept a new score for column {@code col}. A score is positive if dropping into the
+         * column wins for the player to move, negative if it loses, and larger the sooner.
+         *
+         * @param col the column
+         * @param score the score of dropping into the column
+         * @param proven whether the score is proven, exactly or as a bound, rather than the
+         *     result of a depth-limited search
+         * @param depth the number of plies searched after the drop
+         */
+        void score(int col, int score, boolean proven, int depth);
+
+    } // Listener
+
+} // HintProvider
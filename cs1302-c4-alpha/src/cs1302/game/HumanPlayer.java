@@ -0,0 +1,191 @@
+package cs1302.game;
+
+import cs1302.metrics.MetricsRegistry;
+import java.util.Arrays;
+import java.util.Scanner;
+
+/**
+ * A {@link cs1302.game.Player} that asks a person for each column on standard output and reads
+ * the answer from a {@link java.util.Scanner}, asking again until the column can be played.
+ * A person cannot be interrupted, so the deadline is ignored.
+ *
+ * <p>
+ * A player constructed with a {@link cs1302.game.HintProvider} may type {@code hint} instead of
+ * a column to see the score of every column. The first hint of a move starts scoring the
+ * columns on a background thread and prints the scores found within 100 milliseconds; the
+ * scores keep improving until the move is entered, and typing {@code hint} again prints the
+ * latest ones. A score marked with {@code *} is proven. Any player may type
+ * {@code stats} to see the {@linkplain cs1302.metrics.MetricsRegistry#getDefault default}
+ * metrics recorded so far.
+ */
+public class HumanPlayer implements Player {
+
+    // How long the first hint of a move waits for scores before printing them.
+    private static final long HINT_MILLIS = 100;
+
+    private final Scanner in;           // where the columns are typed
+    private final HintProvider hints;   // scores the columns for a hint, or null
+
+    /**
+     * Construct a {@code HumanPlayer} that reads columns from {@code in}.
+     *
+     * @param in the scanner to read from
+     */
+    public HumanPlayer(Scanner in) {
+        this(in, null);
+    } // HumanPlayer
+
+    /**
+     * Construct a {@code HumanPlayer} that reads columns from {@code in} and can ask
+     * {@code hints} for hints.
+     *
+     * @param in the scanner to read from
+     * @param hints the provider that scores the columns, or {@code null} for no hints
+     */
+    public HumanPlayer(Scanner in, HintProvider hints) {
+        this.in = in;
+        this.hints = hints;
+    } // HumanPlayer
+
+    @Override
+    public int chooseMove(ConnectFour view, long deadline) {
+        Hint hint = null;
+        try {
+            while (true) {
+                System.out.print("\nPlayer " + Player.toMove(view) + ", enter a column to drop "
+                                 + (hints == null ? "your token (or stats): "
+                                    : "your token (or hint, stats): "));
+                String line = in.nextLine().trim();
+                if (hints != null && line.equalsIgnoreCase("hint")) {
+                    if (hint == null) {
+                        hint = new Hint(hints, view);
+                    } // if
+                    hint.print();
+                    continue;
+                } else if (line.equalsIgnoreCase("stats")) {
+                    System.out.println("\n" + MetricsRegistry.getDefault());
+                    continue;
+                } // if
+                int col;
+                try {
+                    col = Integer.parseInt(line);
+                } catch (NumberFormatException nfe) {
+                    System.out.println("\n *** Invalid column entry, try again ***");
+                    continue;
+                } // try
+                if (col < 0 || col >= view.getCols()) {
+                    System.out.println("\n *** Invalid column entry, try again ***");
+                } else if (!view.isColumnOpen(col)) {
+                    System.out.println("\n *** Token cannot be dropped because the column is "
+                                       + "full");
+                } else {
+                    return col;
+                } // if
+            } // while
+        } finally {
+            if (hint != null) {
+                hint.stop();
+            } // if
+        } // try
+    } // chooseMove
+
+    @Override
+    public String toString() {
+        return "human";
+    } // toString
+
+    /**
+     * The scores of one move's hint, which a background thread improves until the move is
+     * entered.
+     */
+    private static final class Hint {
+
+        private final HintProvider hints; // the provider scoring the columns
+        private final Thread thread;      // the thread the provider runs on
+        private final long start;         // System.nanoTime() value when scoring began
+        private final int[] score;        // the latest score of each column
+        private final boolean[] proven;   // whether each score is proven
+        private final int[] depth;        // the plies searched for each score, or -1 for none
+
+        /**
+         * Start scoring the columns of {@code view} with {@code hints}.
+         *
+         * @param hints the provider
+         * @param view the position, which is copied
+         */
+        Hint(HintProvider hints, ConnectFour view) {
+            this.hints = hints;
+            score = new int[view.getCols()];
+            proven = new boolean[score.length];
+            depth = new int[score.length];
+            Arrays.fill(depth, -1);
+            ConnectFour copy = new ConnectFour(view);
+            start = System.nanoTime();
+            thread = new Thread(() -> hints.hint(copy, this::record), "hint");
+            thread.setDaemon(true);
+            thread.start();
+        } // Hint
+
+        /**
+         * Record a new score for a column.
+         *
+         * @param col the column
+         * @param newScore the score
+         * @param newProven whether the score is proven
+         * @param newDepth the plies searched
+         */
+        synchronized void record(int col, int newScore, boolean newProven, int newDepth) {
+            score[col] = newScore;
+            proven[col] = newProven;
+            depth[col] = newDepth;
+        } // record
+
+        /**
+         * Print the latest scores and the best column, first waiting until
+         * {@code HINT_MILLIS} milliseconds after scoring began.
+         */
+        void print() {
+            try {
+                thread.join(Math.max(1, HINT_MILLIS - (System.nanoTime() - start) / 1_000_000));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            } // try
+            StringBuilder header = new StringBuilder("\n Column:");
+            StringBuilder line = new StringBuilder(" Scores:");
+            int best = -1;
+            synchronized (this) {
+                for (int col = 0; col < score.length; col++) {
+                    header.append(String.format(" %3d  ", col));
+                    line.append(depth[col] < 0 ? "   ?  "
+                                : String.format(" %+3d%s ", score[col], proven[col] ? "*" : " "));
+                    if (depth[col] >= 0 && (best < 0 || score[col] > score[best])) {
+                        best = col;
+                    } // if
+                } // for
+                System.out.println(header);
+                System.out.println(line);
+                if (best >= 0) {
+                    System.out.printf(" Best column: %d (score %d, %d plies deep)%s\n", best,
+                                      score[best], depth[best], thread.isAlive()
+                                      ? "; type hint again for deeper scores" : "");
+                } // if
+            } // synchronized
+        } // print
+
+        /**
+         * Stop scoring and wait for the background thread to finish.
+         */
+        void stop() {
+            try {
+                do {
+                    hints.stop();
+                    thread.join(10);
+                } while (thread.isAlive());
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            } // try
+        } // stop
+
+    } // Hint
+
+} // HumanPlayer
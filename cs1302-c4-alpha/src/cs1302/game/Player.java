@@ -0,0 +1,78 @@
+package cs1302.game;
+
+import cs1302.gameutil.GamePhase;
+
+/**
+ * A {@code Player} chooses the columns of one side of a {@link cs1302.game.ConnectFour} game.
+ * {@link cs1302.game.ConnectFourCLI#play(ConnectFour, Player, Player, long)} asks each player
+ * for its move in turn, so any pair of players can meet: people at the keyboard, random
+ * movers and searches.
+ *
+ * <p>
+ * Each move is due by a deadline, and it is up to the player how to spend the time until then.
+ * A player that searches should stop when the deadline arrives and answer with the best column
+ * it has found so far rather than overrun it.
+ *
+ * <p>
+ * A player may also think while its opponent is to move. The CLI calls {@link #ponder} on a
+ * background thread while a person is choosing a move, and {@link #stopPondering} as soon as
+ * the move is entered; a player that searches can use the time to work out its replies to
+ * the moves it expects.
+ */
+public interface Player {
+
+    /**
+     * Return the column to drop into. The player to move is
+     * {@link #toMove toMove(view)}, the game is not over, and at least one column is open.
+     *
+     * @param view a copy of the game, which the player may drop tokens on and undo freely
+     * @param deadline the {@link System#nanoTime} value by which the move is due, or
+     *     {@link Long#MAX_VALUE} if there is no time limit
+     * @return a column that is not full
+     */
+    int chooseMove(ConnectFour view, long deadline);
+
+    /**
+     * Think about {@code view}, in which the opponent is to move, until
+     * {@link #stopPondering} is called. This method is called on a background thread and never
+     * while {@link #chooseMove} is running. The default implementation returns at once.
+     *
+     * @param view a copy of the game, which the player may drop tokens on and undo freely
+     */
+    default void ponder(ConnectFour view) {
+    } // ponder
+
+    /**
+     * Make a call to {@link #ponder} in progress return soon. This method is called from
+     * another thread than {@code ponder}, and may be called again until {@code ponder} has
+     * returned, including before it has started. The default implementation does nothing.
+     */
+    default void stopPondering() {
+    } // stopPondering
+
+    /**
+     * Return the player to move in {@code game}: {@code 0} before the first drop and then
+     * {@code numDropped % 2}, the order the CLI plays in.
+     *
+     * @param game the game
+     * @return {@code 0} or {@code 1}
+     */
+    static int toMove(ConnectFour game) {
+        return game.getPhase() == GamePhase.READY ? 0 : game.getNumDropped() % 2;
+    } // toMove
+
+    /**
+     * Return the time left until {@code deadline}, in the form the searches take a budget in.
+     *
+     * @param deadline a {@link System#nanoTime} value, or {@link Long#MAX_VALUE} for none
+     * @return the whole milliseconds left, at least {@code 1}, or {@code 0} if there is no
+     *     deadline
+     */
+    static long millisLeft(long deadline) {
+        if (deadline == Long.MAX_VALUE) {
+            return 0;
+        } // if
+        return Math.max(1, (deadline - System.nanoTime()) / 1_000_000);
+    } // millisLeft
+
+} // Player
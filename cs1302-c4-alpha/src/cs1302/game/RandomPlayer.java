@@ -0,0 +1,36 @@
+package cs1302.game;
+
+import java.util.Random;
+
+/**
+ * A {@link cs1302.game.Player} that drops into a uniformly random open column. It answers at
+ * once, whatever the deadline.
+ */
+public class RandomPlayer implements Player {
+
+    private final Random random; // source of the columns
+
+    /**
+     * Construct a {@code RandomPlayer} that draws its columns from {@code random}.
+     *
+     * @param random the source of randomness
+     */
+    public RandomPlayer(Random random) {
+        this.random = random;
+    } // RandomPlayer
+
+    @Override
+    public int chooseMove(ConnectFour view, long deadline) {
+        long open = view.legalMoves();
+        for (int skip = random.nextInt(Long.bitCount(open)); skip > 0; skip--) {
+            open &= open - 1;
+        } // for
+        return Long.numberOfTrailingZeros(open);
+    } // chooseMove
+
+    @Override
+    public String toString() {
+        return "random";
+    } // toString
+
+} // RandomPlayer
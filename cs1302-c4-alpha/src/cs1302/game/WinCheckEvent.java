@@ -0,0 +1,50 @@
+package cs1302.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for one call of
+ * {@link cs1302.game.ConnectFour#isLastDropConnectFour}. Like {@link cs1302.game.DropEvent}, it
+ * is disabled unless a recording's settings enable {@code cs1302.c4.WinCheck}.
+ */
+@Name("cs1302.c4.WinCheck")
+@Label("Win Check")
+@Category({"Connect Four", "Game"})
+@Description("A check of whether the last drop created a connect four")
+@Enabled(false)
+@StackTrace(false)
+final class WinCheckEvent extends Event {
+
+    @Label("Row")
+    @Description("The row of the last drop, or -1 if nothing was dropped")
+    int row;
+
+    @Label("Column")
+    @Description("The column of the last drop, or -1 if nothing was dropped")
+    int column;
+
+    @Label("Tokens Dropped")
+    int dropped;
+
+    @Label("Phase")
+    @Description("The game phase after the check")
+    String phase;
+
+    @Label("Winner")
+    @Description("The player who won with the last drop, or -1")
+    int winner;
+
+    @Label("Draw")
+    boolean draw;
+
+    @Label("Cached")
+    @Description("Whether the outcome of the last drop was already known")
+    boolean cached;
+
+} // WinCheckEvent
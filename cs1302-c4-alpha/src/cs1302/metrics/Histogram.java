@@ -0,0 +1,184 @@
+package cs1302.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@code Histogram} records the distribution of non-negative {@code long} values, such as
+ * latencies in nanoseconds, in the style of an HDR histogram: values are counted in buckets
+ * whose width grows with the value, so every value is kept to within about 3% of itself
+ * however large it is, in a fixed 1888 buckets.
+ *
+ * <p>
+ * The values below 64 each have a bucket of their own. Above that, every power of two is split
+ * into 32 buckets of equal width, so a bucket is at most 1/32 of its lowest value wide. Each
+ * bucket is a {@link java.util.concurrent.atomic.LongAdder}, so any number of threads can
+ * record at once without contending, and recording never allocates or locks. Reads are not
+ * atomic snapshots: a percentile computed while values are being recorded may miss the latest
+ * few.
+ */
+public class Histogram {
+
+    // The values below SUB each have their own bucket; above, each power of two has SUB / 2.
+    private static final int SUB_BITS = 6;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int HALF = SUB / 2;
+
+    // One group of HALF buckets for each bit position above SUB_BITS, plus the first SUB.
+    private static final int BUCKETS = HALF * (64 - SUB_BITS) + HALF;
+
+    private final LongAdder[] buckets;   // the number of values in each bucket
+    private final LongAdder count;       // the number of values
+    private final LongAdder sum;         // the sum of the values
+    private final LongAccumulator max;   // the largest value
+
+    /**
+     * Construct an empty {@code Histogram}.
+     */
+    public Histogram() {
+        buckets = new LongAdder[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        } // for
+        count = new LongAdder();
+        sum = new LongAdder();
+        max = new LongAccumulator(Math::max, 0);
+    } // Histogram
+
+    /**
+     * Record {@code value}. Negative values, which a clock that steps backwards can produce,
+     * are recorded as {@code 0}.
+     *
+     * @param value the value
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        } // if
+        buckets[index(value)].increment();
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    } // record
+
+    /**
+     * Return the number of values recorded.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return count.sum();
+    } // getCount
+
+    /**
+     * Return the sum of the values recorded.
+     *
+     * @return the sum
+     */
+    public long getSum() {
+        return sum.sum();
+    } // getSum
+
+    /**
+     * Return the mean of the values recorded.
+     *
+     * @return the mean, or {@code 0} if no value has been recorded
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    } // getMean
+
+    /**
+     * Return the largest value recorded.
+     *
+     * @return the maximum, or {@code 0} if no value has been recorded
+     */
+    public long getMax() {
+        return max.get();
+    } // getMax
+
+    /**
+     * Return the value that {@code percentile} percent of the values recorded are at or below,
+     * to within the width of its bucket. The largest value of the bucket is returned, so the
+     * true value is never overstated by more than 1/32 of itself (about 3%), and never by more
+     * than the maximum.
+     *
+     * @param percentile the percentile, from {@code 0} to {@code 100}
+     * @return the value, or {@code 0} if no value has been recorded
+     * @throws IllegalArgumentException if {@code percentile} is out of range
+     */
+    public long getPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Not a percentile: " + percentile);
+        } // if
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        } // for
+        if (total == 0) {
+            return 0;
+        } // if
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highest(i), max.get());
+            } // if
+        } // for
+        return max.get();
+    } // getPercentile
+
+    /**
+     * Remove every value. Values recorded while this method runs may or may not be kept.
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        } // for
+        count.reset();
+        sum.reset();
+        max.reset();
+    } // reset
+
+    /**
+     * Return the index of the bucket that holds {@code value}.
+     *
+     * @param value a non-negative value
+     * @return the bucket index
+     */
+    static int index(long value) {
+        if (value < SUB) {
+            return (int) value;
+        } // if
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+        return HALF * shift + (int) (value >>> shift);
+    } // index
+
+    /**
+     * Return the largest value that bucket {@code index} holds.
+     *
+     * @param index the bucket index
+     * @return the largest value of the bucket
+     */
+    static long highest(int index) {
+        if (index < SUB) {
+            return index;
+        } // if
+        int shift = index / HALF - 1;
+        long sub = index - HALF * shift;
+        long next = (sub + 1) << shift;
+        return next <= 0 ? Long.MAX_VALUE : next - 1;
+    } // highest
+
+    @Override
+    public String toString() {
+        return String.format("count %d, mean %.1f, p50 %d, p90 %d, p99 %d, p99.9 %d, max %d",
+                             getCount(), getMean(), getPercentile(50), getPercentile(90),
+                             getPercentile(99), getPercentile(99.9), getMax());
+    } // toString
+
+} // Histogram
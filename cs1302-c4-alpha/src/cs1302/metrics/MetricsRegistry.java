@@ -0,0 +1,257 @@
+package cs1302.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * A {@code MetricsRegistry} holds named counters and {@linkplain cs1302.metrics.Histogram
+ * histograms}. A metric is created the first time its name is asked for and is shared by
+ * everything that asks for the same name, so any number of games, possibly on different
+ * threads, can record into one registry. Counters are
+ * {@link java.util.concurrent.atomic.LongAdder}s, so recording never contends.
+ *
+ * <p>
+ * A registry can be {@linkplain #registerMBean registered} with the platform MBean server,
+ * where every counter is an attribute of the same name and every histogram contributes the
+ * attributes {@code NAME.count}, {@code NAME.mean}, {@code NAME.p50}, {@code NAME.p99},
+ * {@code NAME.p999} and {@code NAME.max}. The MBean also has a {@code reset} operation.
+ */
+public class MetricsRegistry {
+
+    /** The name the {@linkplain #getDefault default registry} is registered under. */
+    public static final String OBJECT_NAME = "cs1302.c4:type=Metrics";
+
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    private final Map<String, LongAdder> counters;     // counters by name
+    private final Map<String, Histogram> histograms;   // histograms by name
+
+    /**
+     * Construct an empty {@code MetricsRegistry}.
+     */
+    public MetricsRegistry() {
+        counters = new ConcurrentHashMap<>();
+        histograms = new ConcurrentHashMap<>();
+    } // MetricsRegistry
+
+    /**
+     * Return the registry shared by the whole program, which the CLI records into and
+     * reports from.
+     *
+     * @return the default registry
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    } // getDefault
+
+    /**
+     * Return the counter named {@code name}, creating it if needed.
+     *
+     * @param name the name of the counter
+     * @return the counter
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    } // counter
+
+    /**
+     * Return the histogram named {@code name}, creating it if needed.
+     *
+     * @param name the name of the histogram
+     * @return the histogram
+     */
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new Histogram());
+    } // histogram
+
+    /**
+     * Return the current value of every counter, by name.
+     *
+     * @return the counters, sorted by name
+     */
+    public SortedMap<String, Long> getCounters() {
+        SortedMap<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    } // getCounters
+
+    /**
+     * Return every histogram, by name.
+     *
+     * @return the histograms, sorted by name
+     */
+    public SortedMap<String, Histogram> getHistograms() {
+        return new TreeMap<>(histograms);
+    } // getHistograms
+
+    /**
+     * Set every counter to zero and empty every histogram.
+     */
+    public void reset() {
+        counters.values().forEach(LongAdder::reset);
+        histograms.values().forEach(Histogram::reset);
+    } // reset
+
+    /**
+     * Register this registry with the platform MBean server under {@code objectName}, unless
+     * something is already registered under that name.
+     *
+     * @param objectName the object name, e.g. {@value #OBJECT_NAME}
+     * @throws JMException if the name is malformed or the registration fails
+     */
+    public void registerMBean(String objectName) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(objectName);
+        if (!server.isRegistered(name)) {
+            server.registerMBean(new RegistryMBean(this), name);
+        } // if
+    } // registerMBean
+
+    /**
+     * Return a report of the metrics that have recorded something, one per line: counters
+     * with their values, and histograms with their count, mean, percentiles and maximum.
+     *
+     * @return the report
+     */
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        getCounters().forEach((name, value) -> {
+            if (value != 0) {
+                report.append(String.format("%-40s %d%n", name, value));
+            } // if
+        });
+        getHistograms().forEach((name, histogram) -> {
+            if (histogram.getCount() != 0) {
+                report.append(String.format("%-40s %s%n", name, histogram));
+            } // if
+        });
+        return report.toString();
+    } // toString
+
+    /**
+     * The JMX view of a registry. Its attributes are computed from the registry each time the
+     * MBean is inspected, so metrics created later show up too.
+     */
+    private static final class RegistryMBean implements DynamicMBean {
+
+        // The attributes each histogram contributes, after its name and a dot.
+        private static final String[] STATS = {"count", "mean", "p50", "p99", "p999", "max"};
+
+        private final MetricsRegistry registry;
+
+        /**
+         * Construct the MBean of {@code registry}.
+         *
+         * @param registry the registry
+         */
+        RegistryMBean(MetricsRegistry registry) {
+            this.registry = registry;
+        } // RegistryMBean
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            LongAdder counter = registry.counters.get(attribute);
+            if (counter != null) {
+                return counter.sum();
+            } // if
+            int dot = attribute.lastIndexOf('.');
+            Histogram histogram = dot < 0 ? null
+                : registry.histograms.get(attribute.substring(0, dot));
+            if (histogram != null) {
+                switch (attribute.substring(dot + 1)) {
+                case "count":
+                    return histogram.getCount();
+                case "mean":
+                    return histogram.getMean();
+                case "p50":
+                    return histogram.getPercentile(50);
+                case "p99":
+                    return histogram.getPercentile(99);
+                case "p999":
+                    return histogram.getPercentile(99.9);
+                case "max":
+                    return histogram.getMax();
+                default:
+                    break;
+                } // switch
+            } // if
+            throw new AttributeNotFoundException(attribute);
+        } // getAttribute
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+        } // setAttribute
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                try {
+                    list.add(new Attribute(attribute, getAttribute(attribute)));
+                } catch (AttributeNotFoundException anfe) {
+                    // left out of the list, as the interface specifies
+                } // try
+            } // for
+            return list;
+        } // getAttributes
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        } // setAttributes
+
+        @Override
+        public Object invoke(String action, Object[] params, String[] signature)
+            throws ReflectionException {
+            if (action.equals("reset") && (params == null || params.length == 0)) {
+                registry.reset();
+                return null;
+            } // if
+            throw new ReflectionException(new NoSuchMethodException(action));
+        } // invoke
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (String name : registry.getCounters().keySet()) {
+                attributes.add(new MBeanAttributeInfo(name, "long", "counter", true, false,
+                                                      false));
+            } // for
+            for (String name : registry.getHistograms().keySet()) {
+                for (String stat : STATS) {
+                    attributes.add(new MBeanAttributeInfo(
+                        name + "." + stat, stat.equals("mean") ? "double" : "long",
+                        "histogram " + stat, true, false, false));
+                } // for
+            } // for
+            MBeanOperationInfo reset = new MBeanOperationInfo(
+                "reset", "Reset every metric", new MBeanParameterInfo[0], "void",
+                MBeanOperationInfo.ACTION);
+            return new MBeanInfo(MetricsRegistry.class.getName(), "Game metrics",
+                                 attributes.toArray(new MBeanAttributeInfo[0]), null,
+                                 new MBeanOperationInfo[] {reset}, null);
+        } // getMBeanInfo
+
+    } // RegistryMBean
+
+} // MetricsRegistry
@@ -0,0 +1,86 @@
+package cs1302.sim;
+
+/**
+ * The result of one game of a {@link cs1302.sim.Tournament}.
+ */
+public class GameResult {
+
+    private final int first;      // index of the agent that moved first
+    private final int second;     // index of the agent that moved second
+    private final String names;   // "first - second", for printing
+    private final String opening; // the columns of the opening, one digit each
+    private final double score;   // the first agent's score: 1, 1/2 or 0
+    private final int moves;      // the number of tokens dropped
+
+    /**
+     * Construct a {@code GameResult}.
+     *
+     * @param first the index of the agent that moved first
+     * @param second the index of the agent that moved second
+     * @param names the names of the two agents, as printed
+     * @param opening the columns of the opening
+     * @param score the first agent's score: {@code 1} for a win, {@code 0.5} for a draw and
+     *     {@code 0} for a loss
+     * @param moves the number of tokens dropped
+     */
+    GameResult(int first, int second, String names, String opening, double score, int moves) {
+        this.first = first;
+        this.second = second;
+        this.names = names;
+        this.opening = opening;
+        this.score = score;
+        this.moves = moves;
+    } // GameResult
+
+    /**
+     * Return the index of the agent that moved first.
+     *
+     * @return the agent index
+     */
+    public int getFirst() {
+        return first;
+    } // getFirst
+
+    /**
+     * Return the index of the agent that moved second.
+     *
+     * @return the agent index
+     */
+    public int getSecond() {
+        return second;
+    } // getSecond
+
+    /**
+     * Return the columns of the opening the game started from, one digit per drop.
+     *
+     * @return the opening
+     */
+    public String getOpening() {
+        return opening;
+    } // getOpening
+
+    /**
+     * Return the score of the agent that moved first.
+     *
+     * @return {@code 1} for a win, {@code 0.5} for a draw and {@code 0} for a loss
+     */
+    public double getScore() {
+        return score;
+    } // getScore
+
+    /**
+     * Return the number of tokens dropped, including the opening.
+     *
+     * @return the game length
+     */
+    public int getMoves() {
+        return moves;
+    } // getMoves
+
+    @Override
+    public String toString() {
+        String outcome = score == 1 ? "1-0" : score == 0 ? "0-1" : "1/2";
+        return String.format("%s %s [%s] %d moves", names, outcome, opening, moves);
+    } // toString
+
+} // GameResult
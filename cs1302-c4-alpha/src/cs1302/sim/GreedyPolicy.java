@@ -0,0 +1,44 @@
+package cs1302.sim;
+
+import cs1302.game.ConnectFour;
+import cs1302.gameutil.GamePhase;
+import java.util.SplittableRandom;
+
+/**
+ * A {@link cs1302.sim.Policy} that looks one move ahead. It wins at once if it can, otherwise
+ * blocks a column the opponent would win in, and otherwise drops into a random column that does
+ * not let the opponent win on top of its token. It does not allocate.
+ */
+public class GreedyPolicy implements Policy {
+
+    @Override
+    public int chooseMove(ConnectFour game, SplittableRandom random) {
+        int p = game.getPhase() == GamePhase.READY ? 0 : game.getNumDropped() % 2;
+        long legal = game.legalMoves();
+        long safe = 0;
+        for (long rest = legal; rest != 0; rest &= rest - 1) {
+            int col = Long.numberOfTrailingZeros(rest);
+            if (game.isWinningDrop(p, col)) {
+                return col;
+            } // if
+        } // for
+        for (long rest = legal; rest != 0; rest &= rest - 1) {
+            int col = Long.numberOfTrailingZeros(rest);
+            if (game.isWinningDrop(1 - p, col)) {
+                return col;
+            } // if
+            game.tryDrop(p, col);
+            if (!game.isWinningDrop(1 - p, col)) {
+                safe |= 1L << col;
+            } // if
+            game.undo();
+        } // for
+        return RandomPolicy.pick(safe != 0 ? safe : legal, random);
+    } // chooseMove
+
+    @Override
+    public String toString() {
+        return "greedy";
+    } // toString
+
+} // GreedyPolicy
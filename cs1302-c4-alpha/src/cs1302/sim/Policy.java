@@ -0,0 +1,47 @@
+package cs1302.sim;
+
+import cs1302.game.ConnectFour;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * A {@code Policy} chooses the columns of one side of a simulated game. Policies are played by
+ * {@link cs1302.sim.SelfPlay}, which gives every thread its own instances, so an implementation
+ * may keep state between calls without synchronization.
+ */
+public interface Policy {
+
+    /**
+     * Return the column to drop into for the player to move, {@code numDropped % 2}. The game
+     * has at least one legal move and nobody has won yet. The policy may play moves on
+     * {@code game} while it decides, but must leave it exactly as it was found.
+     *
+     * @param game the position
+     * @param random the source of any random choices
+     * @return a legal column
+     */
+    int chooseMove(ConnectFour game, SplittableRandom random);
+
+    /**
+     * Return a factory for the policy named {@code name}: {@code random},
+     * {@code greedy}, or {@code search} with an optional depth limit, as in {@code search:6}.
+     *
+     * @param name the policy name
+     * @return a factory that makes a new instance of the policy on every call
+     * @throws IllegalArgumentException if {@code name} is not a known policy
+     */
+    static Supplier<Policy> named(String name) {
+        if (name.equalsIgnoreCase("random")) {
+            return RandomPolicy::new;
+        } else if (name.equalsIgnoreCase("greedy")) {
+            return GreedyPolicy::new;
+        } else if (name.equalsIgnoreCase("search")) {
+            return () -> new SearchPolicy(SearchPolicy.DEFAULT_DEPTH);
+        } else if (name.toLowerCase().startsWith("search:")) {
+            int depth = Integer.parseInt(name.substring(7));
+            return () -> new SearchPolicy(depth);
+        } // if
+        throw new IllegalArgumentException("Unknown policy: " + name);
+    } // named
+
+} // Policy
@@ -0,0 +1,36 @@
+package cs1302.sim;
+
+import cs1302.game.ConnectFour;
+import java.util.SplittableRandom;
+
+/**
+ * A {@link cs1302.sim.Policy} that drops into a uniformly random legal column. It does not
+ * allocate.
+ */
+public class RandomPolicy implements Policy {
+
+    @Override
+    public int chooseMove(ConnectFour game, SplittableRandom random) {
+        return pick(game.legalMoves(), random);
+    } // chooseMove
+
+    @Override
+    public String toString() {
+        return "random";
+    } // toString
+
+    /**
+     * Return a uniformly random column from a nonempty set of columns.
+     *
+     * @param columns the columns as a bitmask, where bit {@code c} stands for column {@code c}
+     * @param random the source of randomness
+     * @return one of the columns
+     */
+    static int pick(long columns, SplittableRandom random) {
+        for (int skip = random.nextInt(Long.bitCount(columns)); skip > 0; skip--) {
+            columns &= columns - 1;
+        } // for
+        return Long.numberOfTrailingZeros(columns);
+    } // pick
+
+} // RandomPolicy
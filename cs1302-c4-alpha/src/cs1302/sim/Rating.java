@@ -0,0 +1,176 @@
+package cs1302.sim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The rating of one agent after a {@link cs1302.sim.Tournament}, on the Elo scale: an agent
+ * rated 400 points above another is expected to score ten times as much against it.
+ *
+ * <p>
+ * Ratings are fitted to all games at once, as in BayesElo, rather than updated game by game,
+ * so they do not depend on the order in which the games finished. The model is Bradley-Terry,
+ * with a draw counting as half a win for each side, and with two virtual draws between every
+ * pair of agents that met as a prior, which keeps the ratings finite when one agent won every
+ * game. The confidence interval comes from the curvature of the likelihood.
+ */
+public class Rating {
+
+    // Virtual draws added between every pair of agents that met.
+    private static final double PRIOR_DRAWS = 2;
+
+    // Elo points per natural-log unit of strength.
+    private static final double ELO_PER_UNIT = 400 / Math.log(10);
+
+    private final String name;   // the agent
+    private final double elo;    // the rating, with the average agent at 0
+    private final double error;  // half-width of the 95% confidence interval
+    private final int games;     // games played
+    private final double score;  // points scored
+
+    /**
+     * Construct a {@code Rating}.
+     *
+     * @param name the agent's name
+     * @param elo the rating
+     * @param error the half-width of the 95% confidence interval
+     * @param games the number of games played
+     * @param score the number of points scored
+     */
+    Rating(String name, double elo, double error, int games, double score) {
+        this.name = name;
+        this.elo = elo;
+        this.error = error;
+        this.games = games;
+        this.score = score;
+    } // Rating
+
+    /**
+     * Return the agent's name.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    } // getName
+
+    /**
+     * Return the rating, relative to an average of {@code 0} over all agents.
+     *
+     * @return the rating in Elo points
+     */
+    public double getElo() {
+        return elo;
+    } // getElo
+
+    /**
+     * Return the half-width of the 95% confidence interval of the rating.
+     *
+     * @return the error in Elo points, or infinity if the agent played no games
+     */
+    public double getError() {
+        return error;
+    } // getError
+
+    /**
+     * Return the number of games the agent played.
+     *
+     * @return the game count
+     */
+    public int getGames() {
+        return games;
+    } // getGames
+
+    /**
+     * Return the number of points the agent scored, counting a draw as half a point.
+     *
+     * @return the score
+     */
+    public double getScore() {
+        return score;
+    } // getScore
+
+    @Override
+    public String toString() {
+        return String.format("%-12s %7.1f +/- %5.1f %6d games %8.1f points", name, elo, error,
+                             games, score);
+    } // toString
+
+    /**
+     * Fit ratings to a set of game results.
+     *
+     * @param names the names of the agents, by index
+     * @param results the games played
+     * @return the ratings, best first
+     */
+    static List<Rating> fit(List<String> names, List<GameResult> results) {
+        int n = names.size();
+        double[][] met = new double[n][n];
+        double[] points = new double[n];
+        int[] games = new int[n];
+        double[] scores = new double[n];
+        for (GameResult result : results) {
+            int i = result.getFirst();
+            int j = result.getSecond();
+            met[i][j]++;
+            met[j][i]++;
+            games[i]++;
+            games[j]++;
+            scores[i] += result.getScore();
+            scores[j] += 1 - result.getScore();
+        } // for
+        for (int i = 0; i < n; i++) {
+            points[i] = scores[i];
+            for (int j = 0; j < n; j++) {
+                if (met[i][j] > 0) {
+                    met[i][j] += PRIOR_DRAWS;
+                    points[i] += PRIOR_DRAWS / 2;
+                } // if
+            } // for
+        } // for
+
+        // minorization-maximization (Hunter 2004), normalized to a geometric mean of 1
+        double[] gamma = new double[n];
+        Arrays.fill(gamma, 1);
+        for (int iteration = 0; iteration < 10_000; iteration++) {
+            double change = 0;
+            double logSum = 0;
+            for (int i = 0; i < n; i++) {
+                double sum = 0;
+                for (int j = 0; j < n; j++) {
+                    sum += met[i][j] / (gamma[i] + gamma[j]);
+                } // for
+                if (sum > 0) {
+                    double next = points[i] / sum;
+                    change = Math.max(change, Math.abs(Math.log(next / gamma[i])));
+                    gamma[i] = next;
+                } // if
+                logSum += Math.log(gamma[i]);
+            } // for
+            double scale = Math.exp(logSum / n);
+            for (int i = 0; i < n; i++) {
+                gamma[i] /= scale;
+            } // for
+            if (change < 1e-9) {
+                break;
+            } // if
+        } // for
+
+        List<Rating> ratings = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            double information = 0;
+            for (int j = 0; j < n; j++) {
+                double p = gamma[i] / (gamma[i] + gamma[j]);
+                information += met[i][j] * p * (1 - p);
+            } // for
+            double error = 1.96 * ELO_PER_UNIT / Math.sqrt(information);
+            ratings.add(new Rating(names.get(i), ELO_PER_UNIT * Math.log(gamma[i]), error,
+                                   games[i], scores[i]));
+        } // for
+        ratings.sort(Comparator.comparingDouble(Rating::getElo).reversed());
+        return ratings;
+    } // fit
+
+} // Rating
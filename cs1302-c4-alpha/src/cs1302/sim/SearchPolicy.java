@@ -0,0 +1,46 @@
+package cs1302.sim;
+
+import cs1302.game.ConnectFour;
+import cs1302.solver.Solver;
+import java.util.SplittableRandom;
+
+/**
+ * A {@link cs1302.sim.Policy} that plays the best column found by a depth-limited
+ * {@link cs1302.solver.Solver} search. The search is deterministic, so two search policies
+ * always play the same game unless {@link cs1302.sim.SelfPlay#setOpeningPlies} randomizes the
+ * opening. Each search allocates its result, so this policy is not allocation-free.
+ */
+public class SearchPolicy implements Policy {
+
+    /** The depth limit of a search policy named without one. */
+    public static final int DEFAULT_DEPTH = 6;
+
+    private final Solver solver;
+    private final int depth;
+
+    /**
+     * Construct a {@code SearchPolicy} that searches {@code depth} plies ahead.
+     *
+     * @param depth the depth limit in plies
+     * @throws IllegalArgumentException if {@code depth} is less than {@code 1}
+     */
+    public SearchPolicy(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("The depth must be at least 1");
+        } // if
+        this.depth = depth;
+        solver = new Solver();
+        solver.setMaxDepth(depth);
+    } // SearchPolicy
+
+    @Override
+    public int chooseMove(ConnectFour game, SplittableRandom random) {
+        return solver.search(game, 0).getBestMove();
+    } // chooseMove
+
+    @Override
+    public String toString() {
+        return "search:" + depth;
+    } // toString
+
+} // SearchPolicy
@@ -0,0 +1,186 @@
+package cs1302.sim;
+
+import cs1302.game.ConnectFour;
+import cs1302.game.DropResult;
+import cs1302.gameutil.Token;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * A {@code SelfPlay} plays complete games between two {@linkplain cs1302.sim.Policy policies},
+ * {@code A} and {@code B}, without any input or output, and collects
+ * {@linkplain cs1302.sim.SelfPlayStats statistics} about them. The policies take turns moving
+ * first: {@code A} moves first in the even-numbered games and {@code B} in the odd-numbered
+ * ones.
+ *
+ * <p>
+ * The games are split into one contiguous range per thread. Every thread has its own game,
+ * policies, statistics and random generator, split from one seeded
+ * {@link java.util.SplittableRandom}, so a run is reproducible for a given seed and number of
+ * threads. Each game is taken back with {@link cs1302.game.ConnectFour#undo} when it ends, so
+ * the next one reuses the same grid, and with allocation-free policies a thread allocates
+ * nothing after it starts.
+ */
+public class SelfPlay {
+
+    private final int rows;                   // number of grid rows
+    private final int cols;                   // number of grid columns
+    private final Supplier<? extends Policy> a; // makes the instances of policy A
+    private final Supplier<? extends Policy> b; // makes the instances of policy B
+    private int threads;                      // number of worker threads
+    private long seed;                        // seed of the random generators
+    private int openingPlies;                 // leading moves played at random
+
+    /**
+     * Construct a {@code SelfPlay} for games between policy {@code A} and policy {@code B} on
+     * a grid of the given size. It runs on every available processor, with seed {@code 0}.
+     *
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param a makes a new instance of policy {@code A} for each thread
+     * @param b makes a new instance of policy {@code B} for each thread
+     * @throws IllegalArgumentException if the grid size is not supported by
+     *     {@link cs1302.game.ConnectFour}
+     */
+    public SelfPlay(int rows, int cols, Supplier<? extends Policy> a,
+                    Supplier<? extends Policy> b) {
+        new ConnectFour(rows, cols); // rejects unsupported sizes
+        this.rows = rows;
+        this.cols = cols;
+        this.a = a;
+        this.b = b;
+        threads = Runtime.getRuntime().availableProcessors();
+    } // SelfPlay
+
+    /**
+     * Set the number of worker threads.
+     *
+     * @param threads the number of threads
+     * @throws IllegalArgumentException if {@code threads} is less than {@code 1}
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        } // if
+        this.threads = threads;
+    } // setThreads
+
+    /**
+     * Set the seed of the random generators.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    } // setSeed
+
+    /**
+     * Set the number of moves at the start of each game that are played at random instead of by
+     * the policies. This varies the games played by deterministic policies.
+     *
+     * @param openingPlies the number of random moves
+     */
+    public void setOpeningPlies(int openingPlies) {
+        this.openingPlies = openingPlies;
+    } // setOpeningPlies
+
+    /**
+     * Play {@code games} games and return their statistics.
+     *
+     * @param games the number of games
+     * @return the statistics of all games
+     * @throws IllegalStateException if a policy chooses a column that cannot be played
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public SelfPlayStats run(long games) throws InterruptedException {
+        long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Callable<SelfPlayStats>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long from = games * t / threads;
+            long to = games * (t + 1) / threads;
+            SplittableRandom split = random.split();
+            workers.add(() -> play(from, to, split));
+        } // for
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        SelfPlayStats total = new SelfPlayStats(rows, cols);
+        try {
+            for (Future<SelfPlayStats> worker : pool.invokeAll(workers)) {
+                total.add(worker.get());
+            } // for
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ee.getCause();
+            } // if
+            throw new IllegalStateException("A worker failed", ee.getCause());
+        } finally {
+            pool.shutdown();
+        } // try
+        total.setNanos(System.nanoTime() - start);
+        return total;
+    } // run
+
+    /**
+     * Play games {@code from} (inclusive) to {@code to} (exclusive) on the calling thread. The
+     * workers of a {@link cs1302.sim.SelfPlayCoordinator} call this once per batch.
+     *
+     * @param from the number of the first game
+     * @param to one more than the number of the last game
+     * @param random the random generator of this thread
+     * @return the statistics of these games
+     */
+    SelfPlayStats play(long from, long to, SplittableRandom random) {
+        SelfPlayStats stats = new SelfPlayStats(rows, cols);
+        ConnectFour game = new ConnectFour(rows, cols);
+        game.setPlayerTokens(Token.RED, Token.BLUE);
+        Policy[] policies = {a.get(), b.get()};
+        for (long g = from; g < to; g++) {
+            int first = (int) (g & 1);
+            int winner = -1;
+            int ply = 0;
+            int opening = -1;
+            while (game.legalMoves() != 0) {
+                int p = ply & 1;
+                int col = ply < openingPlies ? RandomPolicy.pick(game.legalMoves(), random)
+                    : policies[first ^ p].chooseMove(game, random);
+                if (game.tryDrop(p, col) != DropResult.OK) {
+                    throw new IllegalStateException(policies[first ^ p] + " chose column " + col);
+                } // if
+                opening = ply == 0 ? col : opening;
+                ply++;
+                if (game.getWinner() != -1) {
+                    winner = p;
+                    break;
+                } // if
+            } // while
+            stats.record(first, winner, ply, opening);
+            while (game.undo()) {
+                continue;
+            } // while
+        } // for
+        return stats;
+    } // play
+
+    /**
+     * Return a random generator that depends only on {@code seed} and {@code stream}. The
+     * workers of a {@link cs1302.sim.SelfPlayCoordinator} use one per batch and a
+     * {@link cs1302.sim.Tournament} one per game, so that their results do not depend on
+     * which thread or process does which part of the work, or how often it is retried.
+     *
+     * @param seed the seed of the run
+     * @param stream the number of the batch or game
+     * @return the random generator
+     */
+    static SplittableRandom random(long seed, long stream) {
+        // hash the stream number so that the sequences of neighbouring streams do not overlap
+        return new SplittableRandom(seed ^ new SplittableRandom(stream).nextLong());
+    } // random
+
+} // SelfPlay
@@ -0,0 +1,444 @@
+package cs1302.sim;
+
+import cs1302.game.ConnectFour;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A {@code SelfPlayCoordinator} plays games between two policies like a
+ * {@link cs1302.sim.SelfPlay}, but spreads them over separate worker JVMs, so that the games
+ * are not limited by the heap and garbage collector of one process. The workers are
+ * {@link cs1302.sim.SelfPlayWorker} processes started by the coordinator on the same machine,
+ * and they talk to it over sockets on the loopback interface.
+ *
+ * <p>
+ * The games are cut into batches, and each worker starts with an equal share of them in its
+ * own queue. A worker takes batches from the front of its queue one at a time; when its queue
+ * is empty, it steals from the back of another worker's queue, so fast workers take over the
+ * work of slow ones. If a worker dies or its connection fails, the batch it was playing goes
+ * back to the front of its queue and a new worker process takes its place. A batch that fails
+ * {@value #MAX_ATTEMPTS} times ends the run.
+ *
+ * <p>
+ * The statistics of each batch are added to the total as soon as they arrive, and the total
+ * is passed to the {@linkplain #setListener listener} after every batch. Each batch is played
+ * with a random generator that depends only on the seed and the batch number, so a run is
+ * reproducible for a given seed and batch size, however many workers play it and however many
+ * of them fail.
+ */
+public class SelfPlayCoordinator {
+
+    /** The number of times a batch is tried before the run fails. */
+    public static final int MAX_ATTEMPTS = 3;
+
+    // How long a new worker process may take to connect.
+    private static final int CONNECT_MILLIS = 30_000;
+
+    private final int rows;      // number of grid rows
+    private final int cols;      // number of grid columns
+    private final String a;      // name of policy A
+    private final String b;      // name of policy B
+    private int workers;         // number of worker processes
+    private long batchSize;      // games per batch
+    private long seed;           // seed of the random generators
+    private int openingPlies;    // leading moves played at random
+    private int crashAfter;      // batches after which the first worker crashes, or 0
+    private Consumer<SelfPlayStats> listener; // told about every batch, or null
+    private final Object launching = new Object(); // held while a worker is started
+
+    // state of the run in progress
+    private ServerSocket server;               // where new workers connect
+    private List<Deque<Batch>> queues;         // batches waiting, one queue per worker
+    private SelfPlayStats total;               // statistics of the batches played so far
+    private AtomicReference<RuntimeException> failure; // why the run failed, or null
+    private boolean crashPending;              // whether the next worker should crash
+    private long start;                        // System.nanoTime() when the run started
+
+    /**
+     * Construct a {@code SelfPlayCoordinator} for games between the policies named {@code a}
+     * and {@code b}, as accepted by {@link cs1302.sim.Policy#named}. It starts one worker per
+     * available processor, with batches of 10,000 games and seed {@code 0}.
+     *
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param a the name of policy {@code A}
+     * @param b the name of policy {@code B}
+     * @throws IllegalArgumentException if the grid size is not supported by
+     *     {@link cs1302.game.ConnectFour} or a policy name is not known
+     */
+    public SelfPlayCoordinator(int rows, int cols, String a, String b) {
+        new ConnectFour(rows, cols); // rejects unsupported sizes
+        Policy.named(a);
+        Policy.named(b);
+        this.rows = rows;
+        this.cols = cols;
+        this.a = a;
+        this.b = b;
+        workers = Runtime.getRuntime().availableProcessors();
+        batchSize = 10_000;
+    } // SelfPlayCoordinator
+
+    /**
+     * Set the number of worker processes.
+     *
+     * @param workers the number of workers
+     * @throws IllegalArgumentException if {@code workers} is less than {@code 1}
+     */
+    public void setWorkers(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one worker is needed");
+        } // if
+        this.workers = workers;
+    } // setWorkers
+
+    /**
+     * Set the number of games in a batch. Larger batches cost less communication; smaller
+     * ones balance the load better and lose less work when a worker dies.
+     *
+     * @param batchSize the number of games
+     * @throws IllegalArgumentException if {@code batchSize} is less than {@code 1}
+     */
+    public void setBatchSize(long batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("A batch needs at least one game");
+        } // if
+        this.batchSize = batchSize;
+    } // setBatchSize
+
+    /**
+     * Set the seed of the random generators.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    } // setSeed
+
+    /**
+     * Set the number of moves at the start of each game that are played at random.
+     *
+     * @param openingPlies the number of random moves
+     */
+    public void setOpeningPlies(int openingPlies) {
+        this.openingPlies = openingPlies;
+    } // setOpeningPlies
+
+    /**
+     * Make the first worker process exit abruptly when it receives its {@code crashAfter}th
+     * batch, to exercise the recovery from worker failures.
+     *
+     * @param crashAfter the batch to crash on, or {@code 0} for no crash
+     */
+    public void setCrashAfter(int crashAfter) {
+        this.crashAfter = crashAfter;
+    } // setCrashAfter
+
+    /**
+     * Set the listener that is passed the running total after every batch. It is called on
+     * the coordinator's threads, one call at a time, and must not keep the object it is passed.
+     *
+     * @param listener the listener, or {@code null} for none
+     */
+    public void setListener(Consumer<SelfPlayStats> listener) {
+        this.listener = listener;
+    } // setListener
+
+    /**
+     * Play {@code games} games on the worker processes and return their statistics. The
+     * workers are stopped before this method returns.
+     *
+     * @param games the number of games
+     * @return the statistics of all games
+     * @throws IOException if the coordinator cannot listen for workers
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     * @throws IllegalStateException if a batch fails {@value #MAX_ATTEMPTS} times
+     */
+    public synchronized SelfPlayStats run(long games) throws IOException, InterruptedException {
+        start = System.nanoTime();
+        queues = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            queues.add(new ConcurrentLinkedDeque<>());
+        } // for
+        long batches = (games + batchSize - 1) / batchSize;
+        for (long i = 0; i < batches; i++) {
+            queues.get((int) (i % workers))
+                .add(new Batch(i, i * batchSize, Math.min(games, (i + 1) * batchSize)));
+        } // for
+        total = new SelfPlayStats(rows, cols);
+        failure = new AtomicReference<>();
+        crashPending = crashAfter > 0;
+
+        try (ServerSocket listening = new ServerSocket(0, workers,
+                                                       InetAddress.getLoopbackAddress())) {
+            server = listening;
+            server.setSoTimeout(CONNECT_MILLIS);
+            List<Thread> threads = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                int slot = w;
+                Thread thread = new Thread(() -> serve(slot), "self-play-worker-" + w);
+                thread.start();
+                threads.add(thread);
+            } // for
+            for (Thread thread : threads) {
+                thread.join();
+            } // for
+        } finally {
+            server = null;
+            queues = null;
+        } // try
+
+        if (failure.get() != null) {
+            throw failure.get();
+        } // if
+        total.setNanos(System.nanoTime() - start);
+        return total;
+    } // run
+
+    /**
+     * Feed batches to one worker process until there are none left, replacing the process if
+     * it fails.
+     *
+     * @param slot the number of the worker's queue
+     */
+    private void serve(int slot) {
+        Connection worker = null;
+        try {
+            for (Batch batch = take(slot); batch != null; batch = take(slot)) {
+                try {
+                    if (worker == null) {
+                        worker = launch();
+                    } // if
+                    add(worker.play(batch));
+                } catch (IOException ioe) {
+                    if (worker != null) {
+                        worker.kill();
+                        worker = null;
+                    } // if
+                    batch.attempts++;
+                    if (batch.attempts >= MAX_ATTEMPTS) {
+                        throw new IllegalStateException("Batch " + batch.index + " failed "
+                                                        + batch.attempts + " times", ioe);
+                    } // if
+                    System.err.println("Worker " + slot + " failed (" + ioe
+                                       + "); retrying batch " + batch.index);
+                    queues.get(slot).addFirst(batch);
+                } // try
+            } // for
+        } catch (RuntimeException re) {
+            failure.compareAndSet(null, re);
+        } finally {
+            if (worker != null) {
+                worker.close();
+            } // if
+        } // try
+    } // serve
+
+    /**
+     * Return the next batch for a worker: the first one in its own queue, or else the last one
+     * in the first other queue that has any.
+     *
+     * @param slot the number of the worker's queue
+     * @return the batch, or {@code null} if there are none left or the run has failed
+     */
+    private Batch take(int slot) {
+        if (failure.get() != null) {
+            return null;
+        } // if
+        Batch batch = queues.get(slot).pollFirst();
+        for (int i = 1; batch == null && i < workers; i++) {
+            batch = queues.get((slot + i) % workers).pollLast();
+        } // for
+        return batch;
+    } // take
+
+    /**
+     * Add the statistics of one batch to the total and pass the total to the listener.
+     *
+     * @param stats the statistics of the batch
+     */
+    private void add(SelfPlayStats stats) {
+        synchronized (total) {
+            total.add(stats);
+            total.setNanos(System.nanoTime() - start);
+            if (listener != null) {
+                listener.accept(total);
+            } // if
+        } // synchronized
+    } // add
+
+    /**
+     * Start a worker process, wait for it to connect, and send it the description of the
+     * games. Workers are started one at a time, so that each connection is known to belong to
+     * the process just started.
+     *
+     * @return the connection to the new worker
+     * @throws IOException if the process cannot be started or does not connect in time
+     */
+    private Connection launch() throws IOException {
+        synchronized (launching) {
+            return connect();
+        } // synchronized
+    } // launch
+
+    /**
+     * Start a worker process and connect to it, while holding the launch lock.
+     *
+     * @return the connection to the new worker
+     * @throws IOException if the process cannot be started or does not connect in time
+     */
+    private Connection connect() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(SelfPlayWorker.class.getName());
+        command.add(Integer.toString(server.getLocalPort()));
+        if (crashPending) {
+            command.add("crash=" + crashAfter);
+            crashPending = false;
+        } // if
+        Process process = new ProcessBuilder(command)
+            .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+        Connection worker = null;
+        try {
+            worker = new Connection(process, server.accept());
+            if (worker.in.readInt() != SelfPlayWorker.MAGIC) {
+                throw new IOException("Not a self-play worker");
+            } // if
+            worker.out.writeInt(SelfPlayWorker.MAGIC);
+            worker.out.writeInt(rows);
+            worker.out.writeInt(cols);
+            worker.out.writeUTF(a);
+            worker.out.writeUTF(b);
+            worker.out.writeLong(seed);
+            worker.out.writeInt(openingPlies);
+            worker.out.flush();
+            return worker;
+        } catch (IOException ioe) {
+            if (worker != null) {
+                worker.kill();
+            } else {
+                process.destroyForcibly();
+            } // if
+            throw ioe;
+        } // try
+    } // connect
+
+    /**
+     * A range of games, played together by one worker.
+     */
+    private static final class Batch {
+
+        final long index; // the batch number, which selects its random generator
+        final long from;  // the first game
+        final long to;    // one more than the last game
+        int attempts;     // the number of times a worker has failed to play it
+
+        /**
+         * Construct a {@code Batch}.
+         *
+         * @param index the batch number
+         * @param from the first game
+         * @param to one more than the last game
+         */
+        Batch(long index, long from, long to) {
+            this.index = index;
+            this.from = from;
+            this.to = to;
+        } // Batch
+
+    } // Batch
+
+    /**
+     * The connection to one worker process.
+     */
+    private final class Connection {
+
+        final Process process;     // the worker process
+        final Socket socket;       // its connection
+        final DataInputStream in;  // messages from the worker
+        final DataOutputStream out; // messages to the worker
+
+        /**
+         * Construct a {@code Connection}.
+         *
+         * @param process the worker process
+         * @param socket its connection
+         * @throws IOException if the streams of the socket cannot be opened
+         */
+        Connection(Process process, Socket socket) throws IOException {
+            this.process = process;
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        } // Connection
+
+        /**
+         * Have the worker play one batch and return its statistics.
+         *
+         * @param batch the batch
+         * @return the statistics of the batch
+         * @throws IOException if the worker fails or the connection is lost
+         */
+        SelfPlayStats play(Batch batch) throws IOException {
+            out.writeLong(batch.index);
+            out.writeLong(batch.from);
+            out.writeLong(batch.to);
+            out.flush();
+            if (in.readLong() != batch.index) {
+                throw new IOException("Wrong batch returned");
+            } // if
+            return SelfPlayStats.read(in, rows, cols);
+        } // play
+
+        /**
+         * Tell the worker to stop, and wait for it to exit.
+         */
+        void close() {
+            try {
+                out.writeLong(SelfPlayWorker.STOP);
+                out.flush();
+                if (!process.waitFor(CONNECT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    process.destroyForcibly();
+                } // if
+            } catch (IOException ioe) {
+                process.destroyForcibly();
+            } catch (InterruptedException ie) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            } // try
+            kill();
+        } // close
+
+        /**
+         * Close the connection and end the worker process at once.
+         */
+        void kill() {
+            try {
+                socket.close();
+            } catch (IOException ioe) {
+                // the connection is being abandoned anyway
+            } // try
+            process.destroyForcibly();
+        } // kill
+
+    } // Connection
+
+} // SelfPlayCoordinator
@@ -0,0 +1,78 @@
+package cs1302.sim;
+
+import java.io.IOException;
+
+/**
+ * A command-line program that plays many games between two policies with a
+ * {@link cs1302.sim.SelfPlay} and prints their statistics.
+ *
+ * <pre>
+ * $ java -cp bin:lib/cs1302-gameutil.jar cs1302.sim.SelfPlayDriver ROWS COLS GAMES A B
+ *     [threads=N] [seed=S] [openings=N] [workers=N] [batch=N] [crash=N]
+ * </pre>
+ *
+ * <p>
+ * {@code A} and {@code B} name the policies, as accepted by {@link cs1302.sim.Policy#named}:
+ * {@code random}, {@code greedy}, {@code search} or {@code search:DEPTH}. With
+ * {@code openings=N}, the first {@code N} moves of every game are played at random.
+ *
+ * <p>
+ * With {@code workers=N}, the games are played by {@code N} worker processes under a
+ * {@link cs1302.sim.SelfPlayCoordinator}, in batches of {@code batch=N} games, and the running
+ * total is printed as batches finish. With {@code crash=N}, the first worker exits abruptly on
+ * its {@code N}th batch, to show that its work is retried.
+ */
+public class SelfPlayDriver {
+
+    /**
+     * Entry point to the {@link cs1302.sim.SelfPlayDriver} program.
+     *
+     * @param args the command-line arguments
+     * @throws IOException if the coordinator cannot listen for workers
+     * @throws InterruptedException if the program is interrupted while playing
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 5) {
+            System.out.println("Usage: SelfPlayDriver ROWS COLS GAMES A B [threads=N] [seed=S] "
+                               + "[openings=N] [workers=N] [batch=N] [crash=N]");
+            System.exit(1);
+        } // if
+        int rows = Integer.parseInt(args[0]);
+        int cols = Integer.parseInt(args[1]);
+        long games = Long.parseLong(args[2]);
+        SelfPlay selfPlay = new SelfPlay(rows, cols, Policy.named(args[3]),
+                                         Policy.named(args[4]));
+        SelfPlayCoordinator coordinator = new SelfPlayCoordinator(rows, cols, args[3], args[4]);
+        boolean distributed = false;
+        for (int i = 5; i < args.length; i++) {
+            if (args[i].startsWith("threads=")) {
+                selfPlay.setThreads(Integer.parseInt(args[i].substring(8)));
+            } else if (args[i].startsWith("seed=")) {
+                selfPlay.setSeed(Long.parseLong(args[i].substring(5)));
+                coordinator.setSeed(Long.parseLong(args[i].substring(5)));
+            } else if (args[i].startsWith("openings=")) {
+                selfPlay.setOpeningPlies(Integer.parseInt(args[i].substring(9)));
+                coordinator.setOpeningPlies(Integer.parseInt(args[i].substring(9)));
+            } else if (args[i].startsWith("workers=")) {
+                coordinator.setWorkers(Integer.parseInt(args[i].substring(8)));
+                distributed = true;
+            } else if (args[i].startsWith("batch=")) {
+                coordinator.setBatchSize(Long.parseLong(args[i].substring(6)));
+            } else if (args[i].startsWith("crash=")) {
+                coordinator.setCrashAfter(Integer.parseInt(args[i].substring(6)));
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            } // if
+        } // for
+        System.out.println("A = " + args[3] + ", B = " + args[4]);
+        if (distributed) {
+            coordinator.setListener(total -> System.out.printf(
+                "%d games: A %d, B %d, draws %d%n", total.getGames(), total.getPolicyWins(0),
+                total.getPolicyWins(1), total.getDraws()));
+            System.out.println(coordinator.run(games));
+        } else {
+            System.out.println(selfPlay.run(games));
+        } // if
+    } // main
+
+} // SelfPlayDriver
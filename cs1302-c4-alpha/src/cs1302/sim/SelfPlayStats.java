@@ -0,0 +1,252 @@
+package cs1302.sim;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Aggregate statistics of a {@link cs1302.sim.SelfPlay} run between two policies, {@code A} and
+ * {@code B}: how often each won, how long the games were, and how much the player who moved
+ * first gained from it, overall and by opening column. Each worker thread or batch records its
+ * games in its own instance, and the instances are added together.
+ */
+public class SelfPlayStats {
+
+    private final long[] policyWins;  // games won by A and by B
+    private final long[] playerWins;  // games won by the first and by the second player
+    private final long[] lengths;     // games by number of tokens dropped
+    private final long[] openings;    // games by the first player's first column
+    private final long[] openingWins; // first-player wins by the first player's first column
+    private long games;               // games played
+    private long draws;               // games drawn
+    private long nanos;               // elapsed wall-clock time
+
+    /**
+     * Construct an empty {@code SelfPlayStats} for a grid of the given size.
+     *
+     * @param rows the number of rows
+     * @param cols the number of columns
+     */
+    SelfPlayStats(int rows, int cols) {
+        policyWins = new long[2];
+        playerWins = new long[2];
+        lengths = new long[rows * cols + 1];
+        openings = new long[cols];
+        openingWins = new long[cols];
+    } // SelfPlayStats
+
+    /**
+     * Record one finished game. This method does not allocate.
+     *
+     * @param firstPolicy the policy that moved first ({@code 0} for A and {@code 1} for B)
+     * @param winner the player who won ({@code 0} for first and {@code 1} for second), or
+     *     {@code -1} for a draw
+     * @param length the number of tokens dropped
+     * @param opening the first column played
+     */
+    void record(int firstPolicy, int winner, int length, int opening) {
+        games++;
+        lengths[length]++;
+        openings[opening]++;
+        if (winner < 0) {
+            draws++;
+            return;
+        } // if
+        playerWins[winner]++;
+        policyWins[firstPolicy ^ winner]++;
+        if (winner == 0) {
+            openingWins[opening]++;
+        } // if
+    } // record
+
+    /**
+     * Add the games recorded in {@code other} to this object.
+     *
+     * @param other statistics of the same grid size
+     */
+    void add(SelfPlayStats other) {
+        games += other.games;
+        draws += other.draws;
+        for (int i = 0; i < 2; i++) {
+            policyWins[i] += other.policyWins[i];
+            playerWins[i] += other.playerWins[i];
+        } // for
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] += other.lengths[i];
+        } // for
+        for (int i = 0; i < openings.length; i++) {
+            openings[i] += other.openings[i];
+            openingWins[i] += other.openingWins[i];
+        } // for
+    } // add
+
+    /**
+     * Write the games recorded in this object to {@code out}, as read by {@link #read}.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    void write(DataOutputStream out) throws IOException {
+        out.writeLong(games);
+        out.writeLong(draws);
+        for (long[] counts : new long[][] {policyWins, playerWins, lengths, openings,
+                                           openingWins}) {
+            for (long count : counts) {
+                out.writeLong(count);
+            } // for
+        } // for
+    } // write
+
+    /**
+     * Read games written by {@link #write} into a new object.
+     *
+     * @param in the stream to read from
+     * @param rows the number of rows of the grid the games were played on
+     * @param cols the number of columns of the grid the games were played on
+     * @return the statistics read
+     * @throws IOException if the stream cannot be read
+     */
+    static SelfPlayStats read(DataInputStream in, int rows, int cols) throws IOException {
+        SelfPlayStats stats = new SelfPlayStats(rows, cols);
+        stats.games = in.readLong();
+        stats.draws = in.readLong();
+        for (long[] counts : new long[][] {stats.policyWins, stats.playerWins, stats.lengths,
+                                           stats.openings, stats.openingWins}) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = in.readLong();
+            } // for
+        } // for
+        return stats;
+    } // read
+
+    /**
+     * Set the elapsed time of the run.
+     *
+     * @param nanos the elapsed time, in nanoseconds
+     */
+    void setNanos(long nanos) {
+        this.nanos = nanos;
+    } // setNanos
+
+    /**
+     * Return the number of games played.
+     *
+     * @return the game count
+     */
+    public long getGames() {
+        return games;
+    } // getGames
+
+    /**
+     * Return the number of tokens dropped in all games.
+     *
+     * @return the move count
+     */
+    public long getMoves() {
+        long moves = 0;
+        for (int i = 0; i < lengths.length; i++) {
+            moves += i * lengths[i];
+        } // for
+        return moves;
+    } // getMoves
+
+    /**
+     * Return the number of games a policy won.
+     *
+     * @param policy {@code 0} for A and {@code 1} for B
+     * @return the win count
+     */
+    public long getPolicyWins(int policy) {
+        return policyWins[policy];
+    } // getPolicyWins
+
+    /**
+     * Return the number of games a player won, whichever policy played it.
+     *
+     * @param player {@code 0} for the player who moved first and {@code 1} for the other
+     * @return the win count
+     */
+    public long getPlayerWins(int player) {
+        return playerWins[player];
+    } // getPlayerWins
+
+    /**
+     * Return the number of games drawn.
+     *
+     * @return the draw count
+     */
+    public long getDraws() {
+        return draws;
+    } // getDraws
+
+    /**
+     * Return the number of games that lasted a given number of drops.
+     *
+     * @param length the number of tokens dropped
+     * @return the game count
+     */
+    public long getGamesOfLength(int length) {
+        return lengths[length];
+    } // getGamesOfLength
+
+    /**
+     * Return the average score of the first player, counting a win as {@code 1} and a draw as
+     * {@code 1/2}. A value above {@code 0.5} measures the advantage of moving first.
+     *
+     * @return the first player's score, from {@code 0} to {@code 1}
+     */
+    public double getFirstPlayerScore() {
+        return games == 0 ? 0.5 : (playerWins[0] + draws / 2.0) / games;
+    } // getFirstPlayerScore
+
+    /**
+     * Return the elapsed time of the run.
+     *
+     * @return the elapsed time, in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    } // getNanos
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        double seconds = nanos / 1e9;
+        long moves = getMoves();
+        out.append(String.format("%d games, %d moves in %.3f s (%.0f games/s, %.0f moves/s)%n",
+                                 games, moves, seconds, games / seconds, moves / seconds));
+        out.append(String.format("A wins %.2f%%, B wins %.2f%%, draws %.2f%%%n",
+                                 percent(policyWins[0]), percent(policyWins[1]),
+                                 percent(draws)));
+        out.append(String.format("first player wins %.2f%%, second player wins %.2f%%, "
+                                 + "first-player score %.4f%n", percent(playerWins[0]),
+                                 percent(playerWins[1]), getFirstPlayerScore()));
+        int shortest = -1;
+        int longest = -1;
+        for (int i = 0; i < lengths.length; i++) {
+            if (lengths[i] != 0) {
+                shortest = shortest < 0 ? i : shortest;
+                longest = i;
+            } // if
+        } // for
+        out.append(String.format("game length: mean %.2f, min %d, max %d%n",
+                                 games == 0 ? 0.0 : (double) moves / games, shortest, longest));
+        out.append("first-player wins by opening column:");
+        for (int col = 0; col < openings.length; col++) {
+            out.append(String.format(" %d=%.1f%%", col, openings[col] == 0 ? 0.0
+                                     : 100.0 * openingWins[col] / openings[col]));
+        } // for
+        return out.toString();
+    } // toString
+
+    /**
+     * Return {@code count} as a percentage of the games played.
+     *
+     * @param count a number of games
+     * @return the percentage
+     */
+    private double percent(long count) {
+        return games == 0 ? 0 : 100.0 * count / games;
+    } // percent
+
+} // SelfPlayStats
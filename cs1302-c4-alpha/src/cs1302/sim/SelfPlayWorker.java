@@ -0,0 +1,81 @@
+package cs1302.sim;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * The worker process of a {@link cs1302.sim.SelfPlayCoordinator}. It connects to the
+ * coordinator on the loopback interface, reads the description of the games to play, and then
+ * plays one batch of games at a time on a single thread, sending back the statistics of each
+ * batch, until the coordinator tells it to stop. The coordinator starts workers itself; this
+ * program is not meant to be run by hand.
+ *
+ * <pre>
+ * $ java -cp bin:lib/cs1302-gameutil.jar cs1302.sim.SelfPlayWorker PORT [crash=N]
+ * </pre>
+ *
+ * <p>
+ * With {@code crash=N}, the worker exits abruptly when it receives its {@code N}th batch, so
+ * that the coordinator's recovery can be tried out.
+ */
+public class SelfPlayWorker {
+
+    /** The first value sent on every connection, in both directions. */
+    static final int MAGIC = 0x43345350;
+
+    /** The batch index that tells a worker to stop. */
+    static final long STOP = -1;
+
+    /**
+     * Entry point to the {@link cs1302.sim.SelfPlayWorker} program.
+     *
+     * @param args the command-line arguments
+     * @throws IOException if the connection to the coordinator fails
+     */
+    public static void main(String[] args) throws IOException {
+        int port = Integer.parseInt(args[0]);
+        int crash = args.length > 1 && args[1].startsWith("crash=")
+            ? Integer.parseInt(args[1].substring(6)) : 0;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(
+                new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(MAGIC);
+            out.flush();
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a self-play coordinator");
+            } // if
+            int rows = in.readInt();
+            int cols = in.readInt();
+            String a = in.readUTF();
+            String b = in.readUTF();
+            long seed = in.readLong();
+            SelfPlay selfPlay = new SelfPlay(rows, cols, Policy.named(a), Policy.named(b));
+            selfPlay.setOpeningPlies(in.readInt());
+
+            for (int received = 1; true; received++) {
+                long batch = in.readLong();
+                if (batch == STOP) {
+                    break;
+                } // if
+                long from = in.readLong();
+                long to = in.readLong();
+                if (received == crash) {
+                    Runtime.getRuntime().halt(3);
+                } // if
+                SelfPlayStats stats = selfPlay.play(from, to, SelfPlay.random(seed, batch));
+                out.writeLong(batch);
+                stats.write(out);
+                out.flush();
+            } // for
+        } // try
+    } // main
+
+} // SelfPlayWorker
@@ -0,0 +1,306 @@
+package cs1302.sim;
+
+import cs1302.game.ConnectFour;
+import cs1302.gameutil.GamePhase;
+import cs1302.gameutil.Token;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * A {@code Tournament} plays games between a set of agents, given as
+ * {@linkplain cs1302.sim.Policy#named policy names}, and {@linkplain cs1302.sim.Rating rates}
+ * them. Games are played on {@link cs1302.game.ConnectFour} objects through
+ * {@link cs1302.game.ConnectFour#dropToken} and
+ * {@link cs1302.game.ConnectFour#isLastDropConnectFour}, exactly as the CLI plays them, on a
+ * pool of threads.
+ *
+ * <p>
+ * Every pairing plays two games from the same random opening, once with each agent moving
+ * first, so that neither the advantage of moving first nor a lopsided opening favors either
+ * agent. Each game has a random generator that depends only on the seed and the game number,
+ * so a tournament is reproducible whatever the number of threads. Results are passed to the
+ * {@linkplain #setListener listener} as the games finish.
+ */
+public class Tournament {
+
+    private final int rows;                 // number of grid rows
+    private final int cols;                 // number of grid columns
+    private final List<String> names;       // the agents
+    private TournamentFormat format;        // how agents are paired
+    private int rounds;                     // rounds to play
+    private int threads;                    // number of threads
+    private long seed;                      // seed of the openings and the games
+    private int openingPlies;               // length of the random openings
+    private Consumer<GameResult> listener;  // told about every game, or null
+
+    /**
+     * Construct a round-robin {@code Tournament} of one round between the named agents, with
+     * two-ply openings, seed {@code 0} and one thread per available processor.
+     *
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param names the agents, as accepted by {@link cs1302.sim.Policy#named}
+     * @throws IllegalArgumentException if the grid size is not supported by
+     *     {@link cs1302.game.ConnectFour}, an agent is not known, or there are fewer than two
+     */
+    public Tournament(int rows, int cols, List<String> names) {
+        new ConnectFour(rows, cols); // rejects unsupported sizes
+        if (names.size() < 2) {
+            throw new IllegalArgumentException("A tournament needs at least two agents");
+        } // if
+        for (String name : names) {
+            Policy.named(name);
+        } // for
+        this.rows = rows;
+        this.cols = cols;
+        this.names = new ArrayList<>(names);
+        format = TournamentFormat.ROUND_ROBIN;
+        rounds = 1;
+        threads = Runtime.getRuntime().availableProcessors();
+        openingPlies = 2;
+    } // Tournament
+
+    /**
+     * Set how the agents are paired.
+     *
+     * @param format round robin or Swiss
+     */
+    public void setFormat(TournamentFormat format) {
+        this.format = format;
+    } // setFormat
+
+    /**
+     * Set the number of rounds. Each round of a round robin plays every pairing from a new
+     * opening; each round of a Swiss tournament pairs the agents afresh.
+     *
+     * @param rounds the number of rounds
+     */
+    public void setRounds(int rounds) {
+        this.rounds = rounds;
+    } // setRounds
+
+    /**
+     * Set the number of threads games are played on.
+     *
+     * @param threads the number of threads
+     * @throws IllegalArgumentException if {@code threads} is less than {@code 1}
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        } // if
+        this.threads = threads;
+    } // setThreads
+
+    /**
+     * Set the seed of the openings and of the agents' random choices.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    } // setSeed
+
+    /**
+     * Set the number of random moves in each opening.
+     *
+     * @param openingPlies the opening length
+     */
+    public void setOpeningPlies(int openingPlies) {
+        this.openingPlies = openingPlies;
+    } // setOpeningPlies
+
+    /**
+     * Set the listener that is passed every game as it finishes. It is called on the thread
+     * that called {@link #run}.
+     *
+     * @param listener the listener, or {@code null} for none
+     */
+    public void setListener(Consumer<GameResult> listener) {
+        this.listener = listener;
+    } // setListener
+
+    /**
+     * Play the tournament and return the ratings of the agents.
+     *
+     * @return the ratings, best first
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public List<Rating> run() throws InterruptedException {
+        List<GameResult> results = new ArrayList<>();
+        double[] points = new double[names.size()];
+        int[] byes = new int[names.size()];
+        boolean[][] met = new boolean[names.size()][names.size()];
+        SplittableRandom random = new SplittableRandom(seed);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CompletionService<GameResult> games = new ExecutorCompletionService<>(pool);
+
+            // a round robin submits every round at once; a Swiss round waits for the last one
+            int stages = format == TournamentFormat.ROUND_ROBIN ? 1 : rounds;
+            for (int stage = 0; stage < stages; stage++) {
+                int submitted = 0;
+                for (int round = 0; round < rounds / stages; round++) {
+                    int[] opening = opening(random);
+                    List<int[]> pairs = format == TournamentFormat.ROUND_ROBIN ? allPairs()
+                        : swissPairs(points, byes, met);
+                    for (int i = 0; i < 2 * pairs.size(); i++) {
+                        int first = pairs.get(i / 2)[i % 2];
+                        int second = pairs.get(i / 2)[1 - i % 2];
+                        long number = results.size() + submitted++;
+                        games.submit(() -> play(first, second, opening, number));
+                    } // for
+                } // for
+                for (int i = 0; i < submitted; i++) {
+                    GameResult result = games.take().get();
+                    results.add(result);
+                    points[result.getFirst()] += result.getScore();
+                    points[result.getSecond()] += 1 - result.getScore();
+                    met[result.getFirst()][result.getSecond()] = true;
+                    met[result.getSecond()][result.getFirst()] = true;
+                    if (listener != null) {
+                        listener.accept(result);
+                    } // if
+                } // for
+            } // for
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ee.getCause();
+            } // if
+            throw new IllegalStateException("A game failed", ee.getCause());
+        } finally {
+            pool.shutdownNow();
+        } // try
+        return Rating.fit(names, results);
+    } // run
+
+    /**
+     * Return every pair of agents.
+     *
+     * @return the pairs, as two agent indexes each
+     */
+    private List<int[]> allPairs() {
+        List<int[]> pairs = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            for (int j = i + 1; j < names.size(); j++) {
+                pairs.add(new int[] {i, j});
+            } // for
+        } // for
+        return pairs;
+    } // allPairs
+
+    /**
+     * Pair the agents for a Swiss round: the agents are ranked by their points so far, and
+     * each unpaired agent, from the top, meets the next agent below it that it has not met yet,
+     * or the next agent below it if it has met them all. With an odd number of agents, the
+     * lowest ranked of the agents with the fewest byes sits the round out and scores as if it
+     * had drawn both games.
+     *
+     * @param points the points of each agent so far
+     * @param byes the number of rounds each agent has sat out
+     * @param met which agents have met
+     * @return the pairs, as two agent indexes each
+     */
+    private List<int[]> swissPairs(double[] points, int[] byes, boolean[][] met) {
+        List<Integer> ranked = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            ranked.add(i);
+        } // for
+        ranked.sort(Comparator.comparingDouble((Integer i) -> -points[i]));
+        if (ranked.size() % 2 == 1) {
+            int bye = ranked.size() - 1;
+            for (int i = bye - 1; i >= 0; i--) {
+                if (byes[ranked.get(i)] < byes[ranked.get(bye)]) {
+                    bye = i;
+                } // if
+            } // for
+            int agent = ranked.remove(bye);
+            byes[agent]++;
+            points[agent] += 1;
+        } // if
+        List<int[]> pairs = new ArrayList<>();
+        while (!ranked.isEmpty()) {
+            int a = ranked.remove(0);
+            int pick = 0;
+            while (pick < ranked.size() && met[a][ranked.get(pick)]) {
+                pick++;
+            } // while
+            if (pick == ranked.size()) {
+                pick = 0; // a has met everyone left, so it meets the next agent below it again
+            } // if
+            pairs.add(new int[] {a, ranked.remove(pick)});
+        } // while
+        return pairs;
+    } // swissPairs
+
+    /**
+     * Return a random opening in which nobody has won.
+     *
+     * @param random the source of the moves
+     * @return the columns of the opening
+     */
+    private int[] opening(SplittableRandom random) {
+        int[] opening = new int[openingPlies];
+        boolean over = true;
+        while (over) {
+            ConnectFour game = newGame();
+            over = false;
+            for (int ply = 0; ply < opening.length && !over; ply++) {
+                opening[ply] = RandomPolicy.pick(game.legalMoves(), random);
+                game.dropToken(ply % 2, opening[ply]);
+                over = game.isLastDropConnectFour() || game.getPhase() == GamePhase.OVER;
+            } // for
+        } // while
+        return opening;
+    } // opening
+
+    /**
+     * Play one game from an opening.
+     *
+     * @param first the index of the agent that moves first
+     * @param second the index of the agent that moves second
+     * @param opening the columns of the opening
+     * @param number the game number, which selects its random generator
+     * @return the result of the game
+     */
+    private GameResult play(int first, int second, int[] opening, long number) {
+        Policy[] agents = {Policy.named(names.get(first)).get(),
+                           Policy.named(names.get(second)).get()};
+        SplittableRandom random = SelfPlay.random(seed, number);
+        ConnectFour game = newGame();
+        StringBuilder moves = new StringBuilder();
+        for (int ply = 0; ply < opening.length; ply++) {
+            game.dropToken(ply % 2, opening[ply]);
+            moves.append(opening[ply]);
+        } // for
+        int p = opening.length % 2;
+        while (game.getPhase() != GamePhase.OVER) {
+            game.dropToken(p, agents[p].chooseMove(game, random));
+            game.isLastDropConnectFour();
+            p = 1 - p;
+        } // while
+        double score = !game.isLastDropConnectFour() ? 0.5 : game.getWinner() == 0 ? 1 : 0;
+        return new GameResult(first, second, names.get(first) + " - " + names.get(second),
+                              moves.toString(), score, game.getNumDropped());
+    } // play
+
+    /**
+     * Return a new game with tokens set, ready for the first drop.
+     *
+     * @return the game
+     */
+    private ConnectFour newGame() {
+        ConnectFour game = new ConnectFour(rows, cols);
+        game.setPlayerTokens(Token.RED, Token.BLUE);
+        return game;
+    } // newGame
+
+} // Tournament
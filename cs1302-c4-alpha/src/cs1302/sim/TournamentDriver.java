@@ -0,0 +1,67 @@
+package cs1302.sim;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A command-line program that runs a {@link cs1302.sim.Tournament}, printing each game as it
+ * finishes and the ratings at the end.
+ *
+ * <pre>
+ * $ java -cp bin:lib/cs1302-gameutil.jar cs1302.sim.TournamentDriver ROWS COLS AGENT AGENT...
+ *     [swiss] [rounds=N] [threads=N] [seed=S] [openings=N]
+ * </pre>
+ *
+ * <p>
+ * Each {@code AGENT} names a policy, as accepted by {@link cs1302.sim.Policy#named}, for
+ * example {@code random}, {@code greedy} or {@code search:6}. The tournament is a round robin
+ * unless {@code swiss} is given. Every pairing plays two games per round from the same random
+ * opening of {@code openings=N} moves (default {@code 2}), with colours swapped.
+ */
+public class TournamentDriver {
+
+    /**
+     * Entry point to the {@link cs1302.sim.TournamentDriver} program.
+     *
+     * @param args the command-line arguments
+     * @throws InterruptedException if the program is interrupted while playing
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 4) {
+            System.out.println("Usage: TournamentDriver ROWS COLS AGENT AGENT... [swiss] "
+                               + "[rounds=N] [threads=N] [seed=S] [openings=N]");
+            System.exit(1);
+        } // if
+        List<String> agents = new ArrayList<>();
+        List<String> options = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            (args[i].contains("=") || args[i].equalsIgnoreCase("swiss") ? options : agents)
+                .add(args[i]);
+        } // for
+        Tournament tournament = new Tournament(Integer.parseInt(args[0]),
+                                               Integer.parseInt(args[1]), agents);
+        for (String option : options) {
+            if (option.equalsIgnoreCase("swiss")) {
+                tournament.setFormat(TournamentFormat.SWISS);
+            } else if (option.startsWith("rounds=")) {
+                tournament.setRounds(Integer.parseInt(option.substring(7)));
+            } else if (option.startsWith("threads=")) {
+                tournament.setThreads(Integer.parseInt(option.substring(8)));
+            } else if (option.startsWith("seed=")) {
+                tournament.setSeed(Long.parseLong(option.substring(5)));
+            } else if (option.startsWith("openings=")) {
+                tournament.setOpeningPlies(Integer.parseInt(option.substring(9)));
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + option);
+            } // if
+        } // for
+        int[] played = {0};
+        tournament.setListener(result -> System.out.printf("%5d %s%n", ++played[0], result));
+        List<Rating> ratings = tournament.run();
+        System.out.println();
+        for (Rating rating : ratings) {
+            System.out.println(rating);
+        } // for
+    } // main
+
+} // TournamentDriver
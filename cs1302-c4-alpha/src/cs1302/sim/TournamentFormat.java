@@ -0,0 +1,20 @@
+package cs1302.sim;
+
+/**
+ * How a {@link cs1302.sim.Tournament} pairs its agents.
+ */
+public enum TournamentFormat {
+
+    /**
+     * Every agent meets every other agent once per round, and all games are played at once.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * In each round, agents with similar scores so far meet, avoiding repeat pairings where
+     * possible. Each round waits for the one before it. This needs far fewer games than a
+     * round robin when there are many agents.
+     */
+    SWISS;
+
+} // TournamentFormat
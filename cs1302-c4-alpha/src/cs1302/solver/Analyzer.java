@@ -0,0 +1,310 @@
+package cs1302.solver;
+
+import cs1302.game.ConnectFour;
+import cs1302.game.HintProvider;
+import cs1302.game.Player;
+import cs1302.gameutil.GamePhase;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * An {@code Analyzer} scores every legal column of a {@link cs1302.game.ConnectFour} position,
+ * rather than only finding the best one. Each column is searched by its own
+ * {@link cs1302.solver.Solver} on a copy of the game, and the columns are searched in parallel
+ * on a {@link java.util.concurrent.ForkJoinPool}.
+ *
+ * <p>
+ * The columns deepen in lockstep: every round searches each column that is not yet solved one
+ * ply deeper than the round before, so that every column has a score early on, however few
+ * threads there are, and a slow column cannot starve the others of time. Each new score is
+ * passed to a listener as soon as it is found, so a caller can show the scores improving while
+ * the analysis runs. Every round repeats the shallower iterations of the one before; a
+ * {@link cs1302.solver.TranspositionTable}, shared by all the columns, makes that repetition
+ * cheap; each analysis is one {@linkplain cs1302.solver.TranspositionTable#newSearch search} of
+ * it, however many rounds and columns it has.
+ *
+ * <p>
+ * An {@code Analyzer} is also the {@link cs1302.game.HintProvider} that the CLI gives people at
+ * the keyboard: a hint analyzes the position without a time limit until it is stopped.
+ */
+public class Analyzer implements HintProvider {
+
+    private final ForkJoinPool pool;       // threads that search the columns
+    private TranspositionTable table;      // cache shared by the columns, or null
+    private int maxDepth;                  // deepest round to run, or 0 for no limit
+    private volatile boolean stopped;      // set by stop() to end the current analysis
+    private volatile Column[] running;     // the columns of the current round, or null
+
+    /**
+     * Construct an {@code Analyzer} that searches with {@code threads} threads.
+     *
+     * @param threads the number of threads
+     * @throws IllegalArgumentException if {@code threads} is less than {@code 1}
+     */
+    public Analyzer(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        } // if
+        pool = new ForkJoinPool(threads);
+    } // Analyzer
+
+    /**
+     * Return the number of threads this analyzer searches with.
+     *
+     * @return the number of threads
+     */
+    public int getThreads() {
+        return pool.getParallelism();
+    } // getThreads
+
+    /**
+     * Set the transposition table shared by the searches of all the columns.
+     *
+     * @param table the table, or {@code null} for none
+     */
+    public void setTable(TranspositionTable table) {
+        this.table = table;
+    } // setTable
+
+    /**
+     * Set the deepest round to run. Columns that are not solved by then keep the score of that
+     * round.
+     *
+     * @param maxDepth the depth limit in plies after the drop, or {@code 0} for no limit
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    } // setMaxDepth
+
+    /**
+     * Ask the analysis in progress to stop as soon as possible. Each column keeps the score of
+     * its last completed round. This method may be called from any thread.
+     */
+    @Override
+    public void stop() {
+        stopped = true;
+        Column[] columns = running;
+        if (columns != null) {
+            for (Column column : columns) {
+                column.solver.stop();
+            } // for
+        } // if
+    } // stop
+
+    /**
+     * Analyze {@code view} without a time limit, passing each score to {@code listener}, until
+     * every column is solved or {@link #stop} is called.
+     *
+     * @param view the position to analyze
+     * @param listener told about each new score
+     */
+    @Override
+    public void hint(ConnectFour view, HintProvider.Listener listener) {
+        analyze(view, 0, score -> listener.score(score.getColumn(), score.getScore(),
+                                                 score.getBound() != Bound.HEURISTIC,
+                                                 score.getDepth()));
+    } // hint
+
+    /**
+     * Stop the threads of this analyzer. The analyzer cannot be used afterwards.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    } // shutdown
+
+    /**
+     * Score every legal column of {@code game} for up to {@code millis} milliseconds.
+     *
+     * @param game the position to analyze, which is not changed
+     * @param millis the time budget in milliseconds, or {@code 0} for no limit
+     * @return the score of each legal column, in column order
+     */
+    public List<ColumnScore> analyze(ConnectFour game, long millis) {
+        return analyze(game, millis, null);
+    } // analyze
+
+    /**
+     * Score every legal column of {@code game} for up to {@code millis} milliseconds, passing
+     * each score to {@code listener} as soon as it is found. The columns that are decided
+     * without a search, because they win at once or fill the grid, are passed first on the
+     * calling thread; the rest are passed on the threads of the analyzer, possibly on several
+     * at once. A column that does not complete even one round before the time runs out is
+     * reported with depth {@code 0} and a score of {@code 0}, but not passed to the listener.
+     *
+     * @param game the position to analyze, which is not changed
+     * @param millis the time budget in milliseconds, or {@code 0} for no limit
+     * @param listener the listener, or {@code null} for none
+     * @return the score of each legal column, in column order, or an empty list if the game
+     *     is over
+     */
+    public List<ColumnScore> analyze(ConnectFour game, long millis,
+                                     Consumer<ColumnScore> listener) {
+        long deadline = millis <= 0 ? Long.MAX_VALUE : System.nanoTime() + millis * 1_000_000L;
+        stopped = false;
+        List<ColumnScore> scores = new ArrayList<>();
+        if (game.legalMoves() == 0 || game.getWinner() != -1) {
+            return scores;
+        } // if
+
+        if (table != null) {
+            table.newSearch();
+        } // if
+        int player = Player.toMove(game);
+        int cells = game.getRows() * game.getCols();
+        int ply = game.getPhase() == GamePhase.READY ? 0 : game.getNumDropped();
+        long legal = game.legalMoves();
+        Column[] columns = new Column[game.getCols()];
+        List<Column> open = new ArrayList<>();
+        for (int col = 0; col < columns.length; col++) {
+            if ((legal & (1L << col)) == 0) {
+                continue;
+            } // if
+            Column column = new Column(col, listener);
+            columns[col] = column;
+            if (game.isWinningDrop(player, col)) {
+                column.report(new ColumnScore(col, (cells + 1 - ply) / 2, Bound.EXACT, 0, 0));
+            } else if (ply + 1 == cells) {
+                column.report(new ColumnScore(col, 0, Bound.EXACT, 0, 0));
+            } else {
+                column.view = new ConnectFour(game);
+                column.view.tryDrop(player, col);
+                column.solver = new Solver();
+                column.solver.setTable(table);
+                open.add(column);
+            } // if
+        } // for
+
+        try {
+            for (int depth = 1; !open.isEmpty() && !stopped; depth++) {
+                if (System.nanoTime() >= deadline || maxDepth > 0 && depth > maxDepth) {
+                    break;
+                } // if
+                for (Column column : open) {
+                    column.depth = depth;
+                    column.deadline = deadline;
+                } // for
+                Column[] round = open.toArray(new Column[0]);
+                running = round;
+                if (stopped) {
+                    break; // stop() may have run before it could see this round
+                } // if
+                pool.invoke(new Round(round));
+                open.removeIf(column -> column.solved);
+            } // for
+        } finally {
+            running = null;
+        } // try
+
+        for (Column column : columns) {
+            if (column != null) {
+                scores.add(column.score);
+            } // if
+        } // for
+        return scores;
+    } // analyze
+
+    /**
+     * The state of one column of an analysis, and the task that searches it one round deeper.
+     */
+    private static final class Column extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int col;                         // the column dropped into
+        private final Consumer<ColumnScore> listener;  // told about each new score, or null
+        private ConnectFour view;                      // the position after the drop
+        private Solver solver;                         // the search of that position
+        private int depth;                             // the depth of this round
+        private long deadline;                         // System.nanoTime() value to stop at
+        private volatile ColumnScore score;            // the best score found so far
+        private boolean solved;                        // whether score is no longer heuristic
+
+        /**
+         * Construct a {@code Column} with a score of {@code 0} at depth {@code 0}.
+         *
+         * @param col the column dropped into
+         * @param listener the listener, or {@code null} for none
+         */
+        Column(int col, Consumer<ColumnScore> listener) {
+            this.col = col;
+            this.listener = listener;
+            score = new ColumnScore(col, 0, Bound.HEURISTIC, 0, 0);
+        } // Column
+
+        /**
+         * Record {@code newScore} and pass it to the listener.
+         *
+         * @param newScore the score found
+         */
+        void report(ColumnScore newScore) {
+            score = newScore;
+            solved = newScore.getBound() != Bound.HEURISTIC;
+            if (listener != null) {
+                listener.accept(newScore);
+            } // if
+        } // report
+
+        /**
+         * Search the position after the drop to {@code depth} plies. The score is only
+         * recorded if the round completed or the position was solved before it.
+         */
+        @Override
+        protected void compute() {
+            long millis = 0;
+            if (deadline != Long.MAX_VALUE) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    return; // the columns searched before this one used up the time
+                } // if
+                millis = Math.max(1, left / 1_000_000);
+            } // if
+            solver.setMaxDepth(depth);
+            SearchResult result = solver.search(view, millis);
+            if (result.getBound() == Bound.HEURISTIC && result.getDepth() < depth) {
+                return; // out of time or stopped
+            } // if
+            Bound bound = result.getBound();
+            if (bound == Bound.LOWER) {
+                bound = Bound.UPPER;
+            } else if (bound == Bound.UPPER) {
+                bound = Bound.LOWER;
+            } // if
+            report(new ColumnScore(col, -result.getScore(), bound, result.getDepth(),
+                                   result.getNodes()));
+        } // compute
+
+    } // Column
+
+    /**
+     * A task that runs one round: the searches of all the open columns, in parallel.
+     */
+    private static final class Round extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Column[] columns;
+
+        /**
+         * Construct a {@code Round} of {@code columns}.
+         *
+         * @param columns the columns to search
+         */
+        Round(Column[] columns) {
+            this.columns = columns;
+        } // Round
+
+        @Override
+        protected void compute() {
+            for (Column column : columns) {
+                column.reinitialize();
+            } // for
+            ForkJoinTask.invokeAll(columns);
+        } // compute
+
+    } // Round
+
+} // Analyzer
@@ -0,0 +1,180 @@
+package cs1302.solver;
+
+import cs1302.game.ConnectFour;
+import cs1302.gameutil.Token;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@code Benchmark} is a named set of positions with known scores, which a
+ * {@link cs1302.solver.Solver} is timed on and checked against.
+ *
+ * <p>
+ * A benchmark file has one position per line: the columns played so far, one digit per drop
+ * counted from {@code 1}, then a space and the exact score of the position for the player to
+ * move, on the scale of {@link cs1302.solver.SearchResult}. This is the format of the classic
+ * Connect Four test sets, which can be run as they are. Blank lines and lines starting with
+ * {@code #} are ignored, except that a line {@code # board ROWSxCOLS} sets the grid size of
+ * the positions that follow; the default is 6 rows by 7 columns.
+ */
+public class Benchmark {
+
+    private final String name;            // the name of the set
+    private final List<int[]> sizes;      // rows and columns of each position
+    private final List<String> positions; // the drops of each position, counted from 1
+    private final List<Integer> scores;   // the exact score of each position
+
+    /**
+     * Construct an empty {@code Benchmark}.
+     *
+     * @param name the name of the set
+     */
+    public Benchmark(String name) {
+        this.name = name;
+        sizes = new ArrayList<>();
+        positions = new ArrayList<>();
+        scores = new ArrayList<>();
+    } // Benchmark
+
+    /**
+     * Read a benchmark file. The set is named after the file, without its extension.
+     *
+     * @param file the file to read
+     * @return the benchmark
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line is not in the benchmark format
+     */
+    public static Benchmark load(Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        Benchmark benchmark = new Benchmark(dot > 0 ? fileName.substring(0, dot) : fileName);
+        int rows = 6;
+        int cols = 7;
+        int number = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            number++;
+            line = line.trim();
+            if (line.matches("#\\s*board\\s+\\d+x\\d+")) {
+                String[] size = line.replaceAll("[^0-9x]", "").split("x");
+                rows = Integer.parseInt(size[0]);
+                cols = Integer.parseInt(size[1]);
+            } else if (!line.isEmpty() && !line.startsWith("#")) {
+                String[] fields = line.split("\\s+");
+                if (fields.length != 2 || !fields[0].matches("[1-9]*")
+                    || !fields[1].matches("-?\\d+")) {
+                    throw new IllegalArgumentException(file + ":" + number + ": not a position");
+                } // if
+                benchmark.add(rows, cols, fields[0], Integer.parseInt(fields[1]));
+            } // if
+        } // for
+        return benchmark;
+    } // load
+
+    /**
+     * Write this benchmark to {@code file} in the benchmark format.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# " + name + ": " + positions.size() + " positions");
+        int[] size = null;
+        for (int i = 0; i < positions.size(); i++) {
+            if (size == null || sizes.get(i)[0] != size[0] || sizes.get(i)[1] != size[1]) {
+                size = sizes.get(i);
+                lines.add("# board " + size[0] + "x" + size[1]);
+            } // if
+            lines.add(positions.get(i) + " " + scores.get(i));
+        } // for
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    } // save
+
+    /**
+     * Add a position to this benchmark.
+     *
+     * @param rows the number of grid rows
+     * @param cols the number of grid columns
+     * @param moves the columns played so far, one digit per drop counted from {@code 1}
+     * @param score the exact score of the position for the player to move
+     */
+    public void add(int rows, int cols, String moves, int score) {
+        sizes.add(new int[] {rows, cols});
+        positions.add(moves);
+        scores.add(score);
+    } // add
+
+    /**
+     * Return the name of this benchmark.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    } // getName
+
+    /**
+     * Return the number of positions in this benchmark.
+     *
+     * @return the number of positions
+     */
+    public int size() {
+        return positions.size();
+    } // size
+
+    /**
+     * Set up position {@code index} of this benchmark on a new game.
+     *
+     * @param index the index of the position
+     * @return the game
+     * @throws IllegalArgumentException if the drops cannot be played
+     */
+    public ConnectFour getPosition(int index) {
+        ConnectFour game = new ConnectFour(sizes.get(index)[0], sizes.get(index)[1]);
+        game.setPlayerTokens(Token.RED, Token.BLUE);
+        String moves = positions.get(index);
+        for (int i = 0; i < moves.length(); i++) {
+            try {
+                game.dropToken(i % 2, moves.charAt(i) - '1');
+            } catch (IllegalStateException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException(name + ": cannot play " + moves, e);
+            } // try
+        } // for
+        return game;
+    } // getPosition
+
+    /**
+     * Solve every position of this benchmark with {@code solver} and check the scores. The
+     * solver's transposition table, if any, is cleared before each position, so the node
+     * counts do not depend on the order of the positions. In weak mode, only the sign of each
+     * score is checked.
+     *
+     * @param solver the solver
+     * @return the time, nodes and failures of the run
+     */
+    public BenchmarkResult run(Solver solver) {
+        long nanos = 0;
+        long nodes = 0;
+        int failures = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            ConnectFour game = getPosition(i);
+            if (solver.getTable() != null) {
+                solver.getTable().clear();
+            } // if
+            SearchResult result = solver.solve(game);
+            nanos += result.getNanos();
+            nodes += result.getNodes();
+            int expected = scores.get(i);
+            if (solver.isWeak() ? Integer.signum(result.getScore()) != Integer.signum(expected)
+                : result.getScore() != expected) {
+                failures++;
+            } // if
+        } // for
+        return new BenchmarkResult(name, positions.size(), failures, nanos, nodes);
+    } // run
+
+} // Benchmark
@@ -0,0 +1,190 @@
+package cs1302.solver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A command-line program that runs {@link cs1302.solver.Benchmark} files with a
+ * {@link cs1302.solver.Solver} and reports, for each set, the mean time and nodes per position
+ * and the search speed, as text, CSV or JSON.
+ *
+ * <pre>
+ * $ java -cp bin:lib/cs1302-gameutil.jar cs1302.solver.BenchmarkDriver FILE... [weak]
+ *     [table=MB] [format=text|csv|json] [baseline=FILE] [save] [tolerance=PCT]
+ * </pre>
+ *
+ * <p>
+ * A {@code FILE} that is a directory stands for all the {@code .txt} files in it. Before the
+ * timed runs, the first set is run once to warm up the JIT compiler. With {@code baseline=FILE}
+ * and {@code save}, the results are stored in that file as CSV. With {@code baseline=FILE}
+ * alone, each set is compared with the stored result, and a set whose mean time is more than
+ * {@code tolerance=PCT} percent (default {@value #TOLERANCE}) above it is flagged as slower; a
+ * change in the mean nodes, which do not depend on the machine, is reported as well. The
+ * program exits with status {@code 1} if a set was slower or a score did not match.
+ */
+public class BenchmarkDriver {
+
+    // The default slowdown, in percent, that is tolerated before a set is flagged.
+    private static final double TOLERANCE = 20;
+
+    /**
+     * Entry point to the {@link cs1302.solver.BenchmarkDriver} program.
+     *
+     * @param args the command-line arguments
+     * @throws IOException if a benchmark or the baseline cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: BenchmarkDriver FILE... [weak] [table=MB] "
+                               + "[format=text|csv|json] [baseline=FILE] [save] "
+                               + "[tolerance=PCT]");
+            System.exit(1);
+        } // if
+        List<Path> files = new ArrayList<>();
+        Solver solver = new Solver();
+        int megabytes = 64;
+        String format = "text";
+        Path baseline = null;
+        boolean save = false;
+        double tolerance = TOLERANCE;
+        for (String arg : args) {
+            if (arg.equalsIgnoreCase("weak")) {
+                solver.setWeak(true);
+            } else if (arg.startsWith("table=")) {
+                megabytes = Integer.parseInt(arg.substring(6));
+            } else if (arg.matches("format=(text|csv|json)")) {
+                format = arg.substring(7);
+            } else if (arg.startsWith("baseline=")) {
+                baseline = Paths.get(arg.substring(9));
+            } else if (arg.equalsIgnoreCase("save")) {
+                save = true;
+            } else if (arg.startsWith("tolerance=")) {
+                tolerance = Double.parseDouble(arg.substring(10));
+            } else if (arg.contains("=")) {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            } else {
+                files.addAll(expand(Paths.get(arg)));
+            } // if
+        } // for
+        if (megabytes > 0) {
+            solver.setTable(new TranspositionTable(megabytes));
+        } // if
+
+        List<Benchmark> benchmarks = new ArrayList<>();
+        for (Path file : files) {
+            benchmarks.add(Benchmark.load(file));
+        } // for
+        if (!benchmarks.isEmpty()) {
+            benchmarks.get(0).run(solver); // only warms up the JIT compiler
+        } // if
+        List<BenchmarkResult> results = new ArrayList<>();
+        boolean failed = false;
+        if (format.equals("csv")) {
+            System.out.println(BenchmarkResult.CSV_HEADER);
+        } else if (format.equals("json")) {
+            System.out.println("[");
+        } // if
+        for (int i = 0; i < benchmarks.size(); i++) {
+            BenchmarkResult result = benchmarks.get(i).run(solver);
+            results.add(result);
+            failed |= result.getFailures() > 0;
+            if (format.equals("csv")) {
+                System.out.println(result.toCsv());
+            } else if (format.equals("json")) {
+                System.out.println("  " + result.toJson()
+                                   + (i + 1 < benchmarks.size() ? "," : ""));
+            } else {
+                System.out.println(result);
+            } // if
+        } // for
+        if (format.equals("json")) {
+            System.out.println("]");
+        } // if
+
+        if (baseline != null && save) {
+            List<String> lines = new ArrayList<>();
+            lines.add(BenchmarkResult.CSV_HEADER);
+            for (BenchmarkResult result : results) {
+                lines.add(result.toCsv());
+            } // for
+            Files.write(baseline, lines, StandardCharsets.UTF_8);
+        } else if (baseline != null) {
+            failed |= !compare(results, baseline, tolerance);
+        } // if
+        if (failed) {
+            System.exit(1);
+        } // if
+    } // main
+
+    /**
+     * Return the benchmark files {@code path} stands for: the file itself, or the
+     * {@code .txt} files in it, in name order, if it is a directory.
+     *
+     * @param path a file or directory
+     * @return the files
+     * @throws IOException if the directory cannot be read
+     */
+    private static List<Path> expand(Path path) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(path)) {
+            files.add(path);
+            return files;
+        } // if
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(path, "*.txt")) {
+            for (Path entry : entries) {
+                files.add(entry);
+            } // for
+        } // try
+        files.sort(null);
+        return files;
+    } // expand
+
+    /**
+     * Compare {@code results} with the results stored in {@code baseline} and print a line to
+     * standard error for every set that is slower or visits a different number of nodes.
+     *
+     * @param results the results of this run
+     * @param baseline the CSV file of stored results
+     * @param tolerance the slowdown that is tolerated, in percent
+     * @return {@code true} if no set was slower
+     * @throws IOException if the baseline cannot be read
+     */
+    private static boolean compare(List<BenchmarkResult> results, Path baseline,
+                                   double tolerance) throws IOException {
+        Map<String, BenchmarkResult> stored = new HashMap<>();
+        for (String line : Files.readAllLines(baseline, StandardCharsets.UTF_8)) {
+            if (!line.isBlank() && !line.equals(BenchmarkResult.CSV_HEADER)) {
+                BenchmarkResult result = BenchmarkResult.fromCsv(line);
+                stored.put(result.getName(), result);
+            } // if
+        } // for
+        boolean ok = true;
+        for (BenchmarkResult result : results) {
+            BenchmarkResult base = stored.get(result.getName());
+            if (base == null) {
+                continue;
+            } // if
+            double change = 100 * (result.getMeanMicros() / base.getMeanMicros() - 1);
+            if (change > tolerance) {
+                ok = false;
+                System.err.printf("SLOWER: %s mean %.1f us vs baseline %.1f us (%+.1f%%)%n",
+                                  result.getName(), result.getMeanMicros(),
+                                  base.getMeanMicros(), change);
+            } // if
+            if (Math.abs(result.getMeanNodes() - base.getMeanNodes()) >= 0.1) {
+                System.err.printf("NODES: %s mean %.1f nodes vs baseline %.1f%n",
+                                  result.getName(), result.getMeanNodes(), base.getMeanNodes());
+            } // if
+        } // for
+        return ok;
+    } // compare
+
+} // BenchmarkDriver
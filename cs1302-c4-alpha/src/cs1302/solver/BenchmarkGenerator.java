@@ -0,0 +1,172 @@
+package cs1302.solver;
+
+import cs1302.game.ConnectFour;
+import cs1302.gameutil.Token;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * A command-line program that writes a family of {@link cs1302.solver.Benchmark} files, like the
+ * classic Connect Four test sets: positions from the end, middle and beginning of random games,
+ * each set further split into easy and medium positions by the number of nodes the
+ * {@link cs1302.solver.Solver} needs to solve them.
+ *
+ * <pre>
+ * $ java -cp bin:lib/cs1302-gameutil.jar cs1302.solver.BenchmarkGenerator DIR [count=N]
+ *     [seed=N] [millis=MS] [table=MB] [board=ROWSxCOLS]
+ * </pre>
+ *
+ * <p>
+ * Each position is reached by dropping uniformly at random, and is kept only if nobody has won,
+ * the player to move cannot win at once, it is not already in the set, and the solver proves
+ * its score within {@code millis=MS} (default {@value #MILLIS}); a candidate for an easy set
+ * gets at most {@value #EASY_MILLIS} ms, which is far more than an easy position needs. Medium
+ * positions are only drawn from the middle of the game, since positions with fewer tokens
+ * rarely solve within the limit. Every set gets
+ * {@code count=N} positions (default {@value #COUNT}). The same seed always draws the same
+ * candidates, so only the time limit can make two runs differ.
+ */
+public class BenchmarkGenerator {
+
+    // The default number of positions per set.
+    private static final int COUNT = 100;
+
+    // The default time limit for solving a candidate position, in milliseconds.
+    private static final long MILLIS = 5000;
+
+    // Positions that take fewer nodes than this are easy; the rest are medium.
+    private static final long EASY_NODES = 100_000;
+
+    // A candidate for an easy set that is not solved in this many milliseconds is not easy.
+    private static final long EASY_MILLIS = 250;
+
+    // name, fewest and most tokens in the grid, and whether the positions are easy
+    private static final Object[][] SETS = {
+        {"end-easy", 28, 36, true},
+        {"middle-easy", 14, 27, true},
+        {"middle-medium", 14, 27, false},
+        {"begin-easy", 8, 13, true},
+    };
+
+    /**
+     * Entry point to the {@link cs1302.solver.BenchmarkGenerator} program.
+     *
+     * @param args the command-line arguments
+     * @throws IOException if a file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: BenchmarkGenerator DIR [count=N] [seed=N] [millis=MS] "
+                               + "[table=MB] [board=ROWSxCOLS]");
+            System.exit(1);
+        } // if
+        Path dir = Paths.get(args[0]);
+        int count = COUNT;
+        long seed = 1302;
+        long millis = MILLIS;
+        int megabytes = 64;
+        int rows = 6;
+        int cols = 7;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("count=")) {
+                count = Integer.parseInt(args[i].substring(6));
+            } else if (args[i].startsWith("seed=")) {
+                seed = Long.parseLong(args[i].substring(5));
+            } else if (args[i].startsWith("millis=")) {
+                millis = Long.parseLong(args[i].substring(7));
+            } else if (args[i].startsWith("table=")) {
+                megabytes = Integer.parseInt(args[i].substring(6));
+            } else if (args[i].matches("board=\\d+x\\d+")) {
+                String[] size = args[i].substring(6).split("x");
+                rows = Integer.parseInt(size[0]);
+                cols = Integer.parseInt(size[1]);
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            } // if
+        } // for
+
+        Files.createDirectories(dir);
+        Solver solver = new Solver();
+        solver.setTable(new TranspositionTable(megabytes));
+        SplittableRandom random = new SplittableRandom(seed);
+        for (Object[] set : SETS) {
+            String name = (String) set[0];
+            Benchmark benchmark = generate(name, rows, cols, (Integer) set[1], (Integer) set[2],
+                                           (Boolean) set[3], count, millis, solver, random);
+            benchmark.save(dir.resolve(name + ".txt"));
+            System.out.printf("%s: %d positions%n", name, benchmark.size());
+        } // for
+    } // main
+
+    /**
+     * Draw random positions until {@code count} of them fit a set.
+     *
+     * @param name the name of the set
+     * @param rows the number of grid rows
+     * @param cols the number of grid columns
+     * @param minPly the fewest tokens a position may have
+     * @param maxPly the most tokens a position may have
+     * @param easy whether the set holds easy positions rather than medium ones
+     * @param count the number of positions
+     * @param millis the time limit for solving a candidate, in milliseconds
+     * @param solver the solver that scores the candidates
+     * @param random the source of the drops
+     * @return the set
+     */
+    private static Benchmark generate(String name, int rows, int cols, int minPly, int maxPly,
+                                      boolean easy, int count, long millis, Solver solver,
+                                      SplittableRandom random) {
+        Benchmark benchmark = new Benchmark(name);
+        Set<Long> seen = new HashSet<>();
+        while (benchmark.size() < count) {
+            ConnectFour game = new ConnectFour(rows, cols);
+            game.setPlayerTokens(Token.RED, Token.BLUE);
+            int plies = minPly + random.nextInt(maxPly - minPly + 1);
+            StringBuilder moves = new StringBuilder();
+            boolean over = false;
+            for (int ply = 0; ply < plies && !over; ply++) {
+                long open = game.legalMoves();
+                for (int skip = random.nextInt(Long.bitCount(open)); skip > 0; skip--) {
+                    open &= open - 1;
+                } // for
+                int col = Long.numberOfTrailingZeros(open);
+                game.dropToken(ply % 2, col);
+                moves.append(col + 1);
+                over = game.isLastDropConnectFour() || game.legalMoves() == 0;
+            } // for
+            if (over || winsAtOnce(game, plies % 2) || !seen.add(game.getKey())) {
+                continue;
+            } // if
+            solver.getTable().clear();
+            SearchResult result = solver.search(game, easy ? Math.min(millis, EASY_MILLIS)
+                                                : millis);
+            if (result.getBound() == Bound.EXACT
+                && (result.getNodes() < EASY_NODES) == easy) {
+                benchmark.add(rows, cols, moves.toString(), result.getScore());
+            } // if
+        } // while
+        return benchmark;
+    } // generate
+
+    /**
+     * Return whether {@code player} can win with their next drop.
+     *
+     * @param game the game
+     * @param player the player to move
+     * @return {@code true} if some drop wins at once
+     */
+    private static boolean winsAtOnce(ConnectFour game, int player) {
+        for (int col = 0; col < game.getCols(); col++) {
+            if (game.isWinningDrop(player, col)) {
+                return true;
+            } // if
+        } // for
+        return false;
+    } // winsAtOnce
+
+} // BenchmarkGenerator
@@ -0,0 +1,148 @@
+package cs1302.solver;
+
+import java.util.Locale;
+
+/**
+ * The outcome of running a {@link cs1302.solver.Benchmark}: how many positions were solved,
+ * how many were scored wrongly, and the time and nodes they took. Results can be written as
+ * CSV and JSON, and read back from CSV to compare a run with a stored baseline.
+ */
+public class BenchmarkResult {
+
+    /** The header line of the CSV form, naming the fields of {@link #toCsv}. */
+    public static final String CSV_HEADER =
+        "set,positions,failures,mean_us,mean_nodes,nodes_per_s";
+
+    private final String name;
+    private final int positions;
+    private final int failures;
+    private final long nanos;
+    private final long nodes;
+
+    /**
+     * Construct a {@code BenchmarkResult}.
+     *
+     * @param name the name of the benchmark
+     * @param positions the number of positions solved
+     * @param failures the number of positions whose score did not match
+     * @param nanos the total search time, in nanoseconds
+     * @param nodes the total number of positions visited
+     */
+    public BenchmarkResult(String name, int positions, int failures, long nanos, long nodes) {
+        this.name = name;
+        this.positions = positions;
+        this.failures = failures;
+        this.nanos = nanos;
+        this.nodes = nodes;
+    } // BenchmarkResult
+
+    /**
+     * Read a result from one line of the CSV form. The mean time and nodes are turned back
+     * into totals, so they keep only the precision the line has.
+     *
+     * @param line a line written by {@link #toCsv}
+     * @return the result
+     * @throws IllegalArgumentException if the line is not in the CSV form
+     */
+    public static BenchmarkResult fromCsv(String line) {
+        String[] fields = line.trim().split(",");
+        if (fields.length != 6) {
+            throw new IllegalArgumentException("Not a benchmark result: " + line);
+        } // if
+        try {
+            int positions = Integer.parseInt(fields[1]);
+            return new BenchmarkResult(fields[0], positions, Integer.parseInt(fields[2]),
+                                       (long) (Double.parseDouble(fields[3]) * 1000 * positions),
+                                       (long) (Double.parseDouble(fields[4]) * positions));
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Not a benchmark result: " + line, nfe);
+        } // try
+    } // fromCsv
+
+    /**
+     * Return the name of the benchmark.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    } // getName
+
+    /**
+     * Return the number of positions solved.
+     *
+     * @return the number of positions
+     */
+    public int getPositions() {
+        return positions;
+    } // getPositions
+
+    /**
+     * Return the number of positions whose score did not match the known score.
+     *
+     * @return the number of failures
+     */
+    public int getFailures() {
+        return failures;
+    } // getFailures
+
+    /**
+     * Return the mean time to solve a position.
+     *
+     * @return the mean time, in microseconds
+     */
+    public double getMeanMicros() {
+        return positions == 0 ? 0 : nanos / 1e3 / positions;
+    } // getMeanMicros
+
+    /**
+     * Return the mean number of positions visited to solve a position.
+     *
+     * @return the mean node count
+     */
+    public double getMeanNodes() {
+        return positions == 0 ? 0 : (double) nodes / positions;
+    } // getMeanNodes
+
+    /**
+     * Return the search speed over the whole benchmark.
+     *
+     * @return the number of positions visited per second
+     */
+    public long getNodesPerSecond() {
+        if (nanos <= 0) {
+            return nodes;
+        } // if
+        return (long) (nodes * 1e9 / nanos);
+    } // getNodesPerSecond
+
+    /**
+     * Return this result as one line of CSV, with the fields of {@link #CSV_HEADER}.
+     *
+     * @return the CSV line
+     */
+    public String toCsv() {
+        return String.format(Locale.ROOT, "%s,%d,%d,%.1f,%.1f,%d", name, positions, failures,
+                             getMeanMicros(), getMeanNodes(), getNodesPerSecond());
+    } // toCsv
+
+    /**
+     * Return this result as a JSON object with the fields of {@link #CSV_HEADER}.
+     *
+     * @return the JSON object
+     */
+    public String toJson() {
+        return String.format(Locale.ROOT, "{\"set\": \"%s\", \"positions\": %d, \"failures\": %d, "
+                             + "\"mean_us\": %.1f, \"mean_nodes\": %.1f, \"nodes_per_s\": %d}",
+                             name.replace("\\", "\\\\").replace("\"", "\\\""), positions,
+                             failures, getMeanMicros(), getMeanNodes(), getNodesPerSecond());
+    } // toJson
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d positions, %d failed, mean %.1f us, mean %.0f nodes, "
+                             + "%d nodes/s", name, positions, failures, getMeanMicros(),
+                             getMeanNodes(), getNodesPerSecond());
+    } // toString
+
+} // BenchmarkResult
@@ -0,0 +1,21 @@
+package cs1302.solver;
+
+/**
+ * Describes how a score reported in a {@link cs1302.solver.SearchResult} relates to the true
+ * score of the position.
+ */
+public enum Bound {
+
+    /** The score is the true score of the position. */
+    EXACT,
+
+    /** The true score is at least the reported score. */
+    LOWER,
+
+    /** The true score is at most the reported score. */
+    UPPER,
+
+    /** The search was cut off at a depth limit, so the score is only an estimate. */
+    HEURISTIC;
+
+} // Bound
@@ -0,0 +1,42 @@
+package cs1302.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for one {@linkplain cs1302.solver.TranspositionTable#probe probe}
+ * of a transposition table. Searches probe millions of times per second, so the event is
+ * disabled unless a recording's settings enable {@code cs1302.c4.CacheProbe}.
+ */
+@Name("cs1302.c4.CacheProbe")
+@Label("Cache Probe")
+@Category({"Connect Four", "Solver"})
+@Description("A lookup of a position in a transposition table")
+@Enabled(false)
+@StackTrace(false)
+final class CacheProbeEvent extends Event {
+
+    @Label("Key")
+    long key;
+
+    @Label("Hit")
+    boolean hit;
+
+    @Label("Collision")
+    @Description("Whether a miss found the bucket holding other positions")
+    boolean collision;
+
+    @Label("Depth")
+    @Description("The depth of the entry found, or -1 on a miss")
+    int depth;
+
+    @Label("Bound")
+    @Description("The bound of the entry found, or null on a miss")
+    String bound;
+
+} // CacheProbeEvent
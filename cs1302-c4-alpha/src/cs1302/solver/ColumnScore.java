@@ -0,0 +1,84 @@
+package cs1302.solver;
+
+/**
+ * The score of dropping into one column, as found by an {@link cs1302.solver.Analyzer}. Scores
+ * are from the point of view of the player to move before the drop and are on the same scale as
+ * those of a {@link cs1302.solver.SearchResult}.
+ */
+public class ColumnScore {
+
+    private final int column;
+    private final int score;
+    private final Bound bound;
+    private final int depth;
+    private final long nodes;
+
+    /**
+     * Construct a {@code ColumnScore}.
+     *
+     * @param column the column dropped into
+     * @param score the score of the drop
+     * @param bound how {@code score} relates to the true score
+     * @param depth the depth the position after the drop was searched to, in plies
+     * @param nodes the number of positions visited by the iteration that found the score
+     */
+    public ColumnScore(int column, int score, Bound bound, int depth, long nodes) {
+        this.column = column;
+        this.score = score;
+        this.bound = bound;
+        this.depth = depth;
+        this.nodes = nodes;
+    } // ColumnScore
+
+    /**
+     * Return the column dropped into.
+     *
+     * @return the column
+     */
+    public int getColumn() {
+        return column;
+    } // getColumn
+
+    /**
+     * Return the score of the drop.
+     *
+     * @return the score
+     */
+    public int getScore() {
+        return score;
+    } // getScore
+
+    /**
+     * Return how the score relates to the true score of the drop.
+     *
+     * @return the bound type
+     */
+    public Bound getBound() {
+        return bound;
+    } // getBound
+
+    /**
+     * Return the depth the position after the drop was searched to. A drop that wins at once
+     * or ends the game is not searched and has depth {@code 0}.
+     *
+     * @return the depth, in plies
+     */
+    public int getDepth() {
+        return depth;
+    } // getDepth
+
+    /**
+     * Return the number of positions visited by the iteration that found the score.
+     *
+     * @return the node count
+     */
+    public long getNodes() {
+        return nodes;
+    } // getNodes
+
+    @Override
+    public String toString() {
+        return String.format("column %d, score %d (%s), depth %d", column, score, bound, depth);
+    } // toString
+
+} // ColumnScore
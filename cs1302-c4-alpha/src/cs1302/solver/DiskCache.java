@@ -0,0 +1,441 @@
+package cs1302.solver;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@code DiskCache} keeps proven solver results (exact scores and bounds that did not depend
+ * on a depth limit) in a file so that they survive the JVM and can be reused by later runs.
+ * Results are keyed by {@link cs1302.game.ConnectFour#getCanonicalKey canonical key}, which
+ * already includes the grid size, so one cache can serve every grid size.
+ *
+ * <p>
+ * The file is a {@value #HEADER}-byte header followed by a log of 16-byte records, each holding
+ * the key XORed with the entry and the entry itself in native byte order, packed as by
+ * {@link cs1302.solver.TranspositionTable}. The whole file is mapped into memory, so a hit is
+ * served straight from the page cache, and a record torn by a crash or a concurrent write fails
+ * the XOR check and reads as a miss. An in-memory hash index of {@code int} slot numbers maps
+ * keys to records; it takes 6 to 12 bytes of heap per record and is rebuilt from the log when
+ * the cache is opened.
+ *
+ * <p>
+ * The log has a fixed number of records, set when the file is created. Every record, including
+ * a new result for a key that is already cached, is appended at a clock hand that wraps around
+ * once the log is full; the index is then pointed at the new record and the record it replaces
+ * is cleared, so a record is never rewritten in place. Once the log is full, the record under
+ * the hand is evicted unless it has been hit since the hand last passed it, in which case it
+ * gets a second chance and the hand moves on. This approximates least-recently-used eviction
+ * with one bit per record.
+ *
+ * <p>
+ * {@link #store} only queues a record, so a search thread never waits for the disk. A
+ * background thread applies queued records in batches. When the queue is full, new records are
+ * dropped. {@link #probe} may be called from any number of threads. The writer publishes each
+ * index slot with release semantics after the record it points to, and probes read the slots
+ * with acquire semantics, so a probe that finds a slot sees its record. A probe that races with
+ * the writer moving slots around may miss a record, but the XOR check keeps it from ever
+ * returning the wrong one.
+ */
+public class DiskCache implements AutoCloseable {
+
+    /** The first four bytes of every cache file. */
+    public static final int MAGIC = 0x43344443;
+
+    /** The size of the file header in bytes. */
+    public static final int HEADER = 32;
+
+    /** The fewest nodes a search must have taken for its result to be worth storing. */
+    public static final int MIN_NODES = 4096;
+
+    // The largest number of records, so that the file fits one mapping.
+    private static final int MAX_RECORDS = (Integer.MAX_VALUE - HEADER) / 16;
+
+    // The most records waiting to be written.
+    private static final int QUEUE = 1 << 16;
+
+    private static final VarHandle LONGS =
+        MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final FileChannel channel;  // the open file
+    private final MappedByteBuffer log; // the mapped file
+    private final int capacity;         // number of records in the log
+    private final int[] index;          // slot + 1 of each indexed record, or 0, by key hash;
+                                        // written only by the writer, with release semantics
+    private final int indexMask;        // index.length - 1
+    private final byte[] referenced;    // whether each record was hit since the hand passed it
+    private int hand;                   // the next slot the writer considers
+    private int size;                   // number of records in use
+
+    private final BlockingQueue<long[]> queue = new ArrayBlockingQueue<>(QUEUE);
+    private final AtomicInteger pending = new AtomicInteger(); // queued but not yet written
+    private final Object written = new Object(); // notified when pending records are written
+    private final Thread writer;        // applies queued records
+    private volatile boolean closed;    // whether close has been called
+
+    private final LongAdder probes = new LongAdder();    // calls to probe
+    private final LongAdder hits = new LongAdder();      // probes that found their key
+    private final LongAdder stores = new LongAdder();    // records written
+    private final LongAdder dropped = new LongAdder();   // records dropped with a full queue
+    private final LongAdder evictions = new LongAdder(); // records overwritten by others
+
+    /**
+     * Construct a {@code DiskCache} over an open cache file.
+     *
+     * @param channel the open file
+     * @param capacity the number of records
+     * @throws IOException if the file cannot be mapped or is not a cache
+     */
+    private DiskCache(FileChannel channel, int capacity) throws IOException {
+        this.channel = channel;
+        this.capacity = capacity;
+        long bytes = HEADER + capacity * 16L;
+        boolean created = channel.size() == 0;
+        log = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        log.order(ByteOrder.nativeOrder());
+        if (created) {
+            log.putInt(0, MAGIC);
+            log.putInt(4, capacity);
+        } else if (log.getInt(0) != MAGIC || log.getInt(4) != capacity) {
+            throw new IOException("Not a solver cache");
+        } // if
+        hand = log.getInt(8);
+        referenced = new byte[capacity];
+        // at most two thirds full, so probe sequences stay short and always end
+        index = new int[Integer.highestOneBit(capacity + capacity / 2) << 1];
+        indexMask = index.length - 1;
+        for (int slot = 0; slot < capacity; slot++) {
+            long data = read(slot);
+            if (data != 0 && find(key(slot), slot) < 0) {
+                insert(key(slot), slot);
+                size++;
+            } else if (data != 0) {
+                // a crash between appending a record and clearing the one it replaced
+                LONGS.setOpaque(log, HEADER + slot * 16 + 8, 0L);
+            } // if
+        } // for
+
+        writer = new Thread(this::write, "DiskCache writer");
+        writer.setDaemon(true);
+        writer.start();
+    } // DiskCache
+
+    /**
+     * Open the cache stored in {@code file}, creating it with room for about {@code megabytes}
+     * of records if it does not exist. An existing cache keeps the size it was created with.
+     *
+     * @param file the cache file
+     * @param megabytes the size of a new cache in MiB
+     * @return the cache
+     * @throws IOException if the file cannot be opened or is not a cache
+     * @throws IllegalArgumentException if {@code megabytes} is less than {@code 1}
+     */
+    public static DiskCache open(Path file, int megabytes) throws IOException {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("The cache needs at least 1 MB");
+        } // if
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                               StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        try {
+            long records = channel.size() == 0
+                ? (((long) megabytes << 20) - HEADER) / 16 : (channel.size() - HEADER) / 16;
+            return new DiskCache(channel, (int) Math.min(records, MAX_RECORDS));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        } // try
+    } // open
+
+    /**
+     * Return the entry stored for {@code key}, packed as by
+     * {@link cs1302.solver.TranspositionTable}, or {@code 0} if there is none.
+     *
+     * @param key the canonical position key
+     * @return the packed entry, or {@code 0}
+     */
+    public long probe(long key) {
+        probes.increment();
+        // the writer may be moving slots, so the walk is bounded even if it never sees a 0
+        int i = (int) key & indexMask;
+        for (int step = 0; step <= indexMask; step++, i = (i + 1) & indexMask) {
+            int slot = (int) SLOTS.getAcquire(index, i) - 1;
+            if (slot < 0) {
+                return 0;
+            } // if
+            int offset = HEADER + slot * 16;
+            long check = (long) LONGS.getOpaque(log, offset);
+            long data = (long) LONGS.getOpaque(log, offset + 8);
+            if (data != 0 && (check ^ data) == key) {
+                referenced[slot] = 1;
+                hits.increment();
+                return data;
+            } // if
+        } // for
+        return 0;
+    } // probe
+
+    /**
+     * Queue a proven result for {@code key} to be written to the cache. This method returns at
+     * once; if too many results are already waiting, the result is dropped.
+     *
+     * @param key the canonical position key
+     * @param entry the result, packed as by {@link cs1302.solver.TranspositionTable}
+     */
+    public void store(long key, long entry) {
+        pending.incrementAndGet();
+        if (closed || !queue.offer(new long[] {key, entry})) {
+            dropped.increment();
+            if (pending.decrementAndGet() == 0) {
+                synchronized (written) {
+                    written.notifyAll();
+                } // synchronized
+            } // if
+        } // if
+    } // store
+
+    /**
+     * Wait until every queued result has been written and the file is on disk.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void flush() throws IOException {
+        synchronized (written) {
+            while (pending.get() > 0 && writer.isAlive()) {
+                try {
+                    written.wait();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while flushing the cache");
+                } // try
+            } // while
+        } // synchronized
+        log.force();
+    } // flush
+
+    /**
+     * Write every queued result, stop the writer thread and close the file. The cache cannot
+     * be used afterwards.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } // try
+        log.force();
+        channel.close();
+    } // close
+
+    /**
+     * Return the number of records the cache can hold.
+     *
+     * @return the capacity in records
+     */
+    public int getCapacity() {
+        return capacity;
+    } // getCapacity
+
+    /**
+     * Return the number of records in the cache. Results that are still queued are not counted
+     * until they are written, so call {@link #flush} first for an exact count.
+     *
+     * @return the number of records
+     */
+    public int size() {
+        return size;
+    } // size
+
+    /**
+     * Return the fraction of probes that found their position.
+     *
+     * @return the hit rate, from {@code 0} to {@code 1}
+     */
+    public double getHitRate() {
+        long count = probes.sum();
+        return count == 0 ? 0 : (double) hits.sum() / count;
+    } // getHitRate
+
+    @Override
+    public String toString() {
+        return String.format("%d of %d records, %d probes, %.1f%% hits, %d stores, %d evictions, "
+                             + "%d dropped", size, capacity, probes.sum(), getHitRate() * 100,
+                             stores.sum(), evictions.sum(), dropped.sum());
+    } // toString
+
+    /**
+     * Apply queued results in batches until the cache is closed.
+     */
+    private void write() {
+        List<long[]> batch = new ArrayList<>();
+        try {
+            while (true) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException ie) {
+                    if (closed) {
+                        queue.drainTo(batch);
+                        apply(batch);
+                        return;
+                    } // if
+                    continue;
+                } // try
+                queue.drainTo(batch);
+                apply(batch);
+                batch.clear();
+            } // while
+        } finally {
+            // flush() also waits for the writer to die, so it must hear about that too
+            synchronized (written) {
+                written.notifyAll();
+            } // synchronized
+        } // try
+    } // write
+
+    /**
+     * Write a batch of results to the log and the index.
+     *
+     * @param batch key and entry pairs
+     */
+    private void apply(List<long[]> batch) {
+        for (long[] record : batch) {
+            // the record is appended before the index points at it
+            int slot = advance();
+            LONGS.setOpaque(log, HEADER + slot * 16, record[0] ^ record[1]);
+            LONGS.setOpaque(log, HEADER + slot * 16 + 8, record[1]);
+            int i = find(record[0], slot);
+            if (i < 0) {
+                insert(record[0], slot);
+            } else {
+                int old = index[i] - 1;
+                referenced[slot] = referenced[old];
+                SLOTS.setRelease(index, i, slot + 1);
+                LONGS.setOpaque(log, HEADER + old * 16 + 8, 0L);
+                size--;
+            } // if
+            stores.increment();
+        } // for
+        log.putInt(8, hand);
+        if (pending.addAndGet(-batch.size()) == 0) {
+            synchronized (written) {
+                written.notifyAll();
+            } // synchronized
+        } // if
+    } // apply
+
+    /**
+     * Move the clock hand to a slot for a new record, evicting the record there if any.
+     *
+     * @return the slot
+     */
+    private int advance() {
+        while (true) {
+            int slot = hand;
+            hand = hand + 1 == capacity ? 0 : hand + 1;
+            if (read(slot) == 0) {
+                size++;
+                return slot;
+            } // if
+            if (referenced[slot] == 0) {
+                remove(key(slot));
+                evictions.increment();
+                return slot;
+            } // if
+            referenced[slot] = 0;
+        } // while
+    } // advance
+
+    /**
+     * Return the index position of the record for {@code key} other than the one in
+     * {@code skip}, or {@code -1} if there is none.
+     *
+     * @param key the position key
+     * @param skip a slot to ignore, such as the one just appended for {@code key}
+     * @return the index position, or {@code -1}
+     */
+    private int find(long key, int skip) {
+        for (int i = (int) key & indexMask; index[i] != 0; i = (i + 1) & indexMask) {
+            if (index[i] - 1 != skip && key(index[i] - 1) == key) {
+                return i;
+            } // if
+        } // for
+        return -1;
+    } // find
+
+    /**
+     * Add {@code slot} to the index under {@code key}.
+     *
+     * @param key the position key
+     * @param slot the slot of its record
+     */
+    private void insert(long key, int slot) {
+        int i = (int) key & indexMask;
+        while (index[i] != 0) {
+            i = (i + 1) & indexMask;
+        } // while
+        SLOTS.setRelease(index, i, slot + 1);
+    } // insert
+
+    /**
+     * Remove the index entry for {@code key}, moving later entries of its probe sequence back
+     * so that linear probing still finds them.
+     *
+     * @param key the position key
+     */
+    private void remove(long key) {
+        int i = (int) key & indexMask;
+        while (key(index[i] - 1) != key) {
+            i = (i + 1) & indexMask;
+        } // while
+        for (int j = (i + 1) & indexMask; index[j] != 0; j = (j + 1) & indexMask) {
+            int home = (int) key(index[j] - 1) & indexMask;
+            // move j back into the hole at i unless its home lies cyclically in (i, j]
+            if (((j - home) & indexMask) >= ((j - i) & indexMask)) {
+                SLOTS.setRelease(index, i, index[j]);
+                i = j;
+            } // if
+        } // for
+        SLOTS.setRelease(index, i, 0);
+    } // remove
+
+    /**
+     * Return the entry in {@code slot}, or {@code 0} if the slot is empty.
+     *
+     * @param slot the slot
+     * @return the packed entry, or {@code 0}
+     */
+    private long read(int slot) {
+        return (long) LONGS.getOpaque(log, HEADER + slot * 16 + 8);
+    } // read
+
+    /**
+     * Return the key of the record in {@code slot}.
+     *
+     * @param slot the slot
+     * @return the key
+     */
+    private long key(int slot) {
+        int offset = HEADER + slot * 16;
+        return (long) LONGS.getOpaque(log, offset) ^ (long) LONGS.getOpaque(log, offset + 8);
+    } // key
+
+} // DiskCache
@@ -0,0 +1,74 @@
+package cs1302.solver;
+
+import cs1302.game.ConnectFour;
+import cs1302.gameutil.GamePhase;
+import cs1302.gameutil.Token;
+
+/**
+ * A command-line program that searches one {@link cs1302.game.ConnectFour} position with a
+ * {@link cs1302.solver.MonteCarloSearch} and prints the result, including the playout rate.
+ *
+ * <pre>
+ * $ java -cp bin:lib/cs1302-gameutil.jar cs1302.solver.MonteCarloDriver ROWS COLS MILLIS [MOVES]
+ *     [threads=N] [playouts=N] [root] [play]
+ * </pre>
+ *
+ * <p>
+ * {@code MOVES} is the sequence of columns played so far, as for
+ * {@link cs1302.solver.SolverDriver}. A {@code MILLIS} of {@code 0} searches until the playout
+ * budget set with {@code playouts=N} is spent. With {@code root}, the threads use root
+ * parallelism instead of tree parallelism. With {@code play}, the search plays both sides from
+ * the position to the end of the game, reusing its tree from move to move.
+ */
+public class MonteCarloDriver {
+
+    /**
+     * Entry point to the {@link cs1302.solver.MonteCarloDriver} program.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: MonteCarloDriver ROWS COLS MILLIS [MOVES] [threads=N] "
+                               + "[playouts=N] [root] [play]");
+            System.exit(1);
+        } // if
+        ConnectFour game = new ConnectFour(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+        game.setPlayerTokens(Token.RED, Token.BLUE);
+        long millis = Long.parseLong(args[2]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        long playouts = 0;
+        Parallelism parallelism = Parallelism.TREE;
+        boolean play = false;
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].startsWith("threads=")) {
+                threads = Integer.parseInt(args[i].substring(8));
+            } else if (args[i].startsWith("playouts=")) {
+                playouts = Long.parseLong(args[i].substring(9));
+            } else if (args[i].equalsIgnoreCase("root")) {
+                parallelism = Parallelism.ROOT;
+            } else if (args[i].equalsIgnoreCase("play")) {
+                play = true;
+            } else {
+                SolverDriver.play(game, args[i]);
+            } // if
+        } // for
+
+        MonteCarloSearch search = new MonteCarloSearch(threads, System.nanoTime());
+        search.setParallelism(parallelism);
+        search.setMaxPlayouts(playouts);
+        game.printGrid();
+        do {
+            MonteCarloResult result = search.search(game, millis);
+            System.out.println(result);
+            if (!play || result.getBestMove() < 0) {
+                break;
+            } // if
+            game.dropToken(game.getPhase() == GamePhase.READY ? 0 : game.getNumDropped() % 2,
+                           result.getBestMove());
+            game.printGrid();
+        } while (!game.isLastDropConnectFour());
+        search.shutdown();
+    } // main
+
+} // MonteCarloDriver
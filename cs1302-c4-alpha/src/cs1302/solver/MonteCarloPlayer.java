@@ -0,0 +1,83 @@
+package cs1302.solver;
+
+import cs1302.game.ConnectFour;
+import cs1302.game.Player;
+
+/**
+ * A {@link cs1302.game.Player} that plays the most visited column of a
+ * {@link cs1302.solver.MonteCarloSearch}. The search runs playouts until the deadline and then
+ * answers with its best column so far; its tree is kept between moves. Without a deadline, the
+ * search's playout budget must be set.
+ *
+ * <p>
+ * While the opponent is to move, the player {@linkplain #ponder ponders} by searching the
+ * opponent's position. Playouts concentrate on the replies the opponent is most likely to
+ * play, and the search of the player's next move starts from the subtree of the reply that
+ * was actually played. The playouts already in that subtree count towards the move: if it
+ * holds as many as the search would run in the time left, the player answers at once, and
+ * otherwise it only searches for long enough to make up the difference.
+ */
+public class MonteCarloPlayer implements Player {
+
+    // Pondering searches in slices of this many milliseconds, checking for a stop in between.
+    private static final long PONDER_MILLIS = 100;
+
+    private final MonteCarloSearch search; // the search to run
+    private volatile boolean pondering;    // cleared by stopPondering()
+    private double rate;                   // playouts per millisecond while pondering, or 0
+
+    /**
+     * Construct a {@code MonteCarloPlayer} that searches with {@code search}.
+     *
+     * @param search the Monte Carlo search
+     */
+    public MonteCarloPlayer(MonteCarloSearch search) {
+        this.search = search;
+    } // MonteCarloPlayer
+
+    @Override
+    public int chooseMove(ConnectFour view, long deadline) {
+        long millis = Player.millisLeft(deadline);
+        if (rate > 0 && millis > 0) {
+            // count the playouts kept from pondering as time already spent
+            MonteCarloResult kept = search.search(view, 1);
+            long playouts = 0;
+            for (int visits : kept.getVisits()) {
+                playouts += visits;
+            } // for
+            long wanted = (long) (rate * millis);
+            if (playouts >= wanted) {
+                rate = 0;
+                return kept.getBestMove();
+            } // if
+            millis = Math.max(1, Math.min(millis, (long) ((wanted - playouts) / rate)));
+            rate = 0;
+        } // if
+        return search.search(view, millis).getBestMove();
+    } // chooseMove
+
+    @Override
+    public void ponder(ConnectFour view) {
+        pondering = true;
+        long playouts = 0;
+        long nanos = 0;
+        while (pondering && view.legalMoves() != 0 && view.getWinner() == -1) {
+            MonteCarloResult result = search.search(view, PONDER_MILLIS);
+            playouts += result.getPlayouts();
+            nanos += result.getNanos();
+        } // while
+        rate = nanos == 0 ? 0 : playouts / (nanos / 1e6);
+    } // ponder
+
+    @Override
+    public void stopPondering() {
+        pondering = false;
+        search.stop();
+    } // stopPondering
+
+    @Override
+    public String toString() {
+        return "mcts";
+    } // toString
+
+} // MonteCarloPlayer
@@ -0,0 +1,99 @@
+package cs1302.solver;
+
+/**
+ * The outcome of a {@link cs1302.solver.MonteCarloSearch}: the most visited column, how often
+ * its playouts were won, and how much work the search did. Win rates are from the point of view
+ * of the player to move, with a draw counting as half a win.
+ */
+public class MonteCarloResult {
+
+    private final int bestMove;
+    private final double winRate;
+    private final int[] visits;
+    private final long playouts;
+    private final long nanos;
+
+    /**
+     * Construct a {@code MonteCarloResult}.
+     *
+     * @param bestMove the most visited column, or {@code -1} if there was no legal move
+     * @param winRate the fraction of the best column's playouts that were won
+     * @param visits the number of playouts through each column
+     * @param playouts the number of playouts run by this search
+     * @param nanos the elapsed time, in nanoseconds
+     */
+    public MonteCarloResult(int bestMove, double winRate, int[] visits, long playouts,
+                            long nanos) {
+        this.bestMove = bestMove;
+        this.winRate = winRate;
+        this.visits = visits.clone();
+        this.playouts = playouts;
+        this.nanos = nanos;
+    } // MonteCarloResult
+
+    /**
+     * Return the most visited column.
+     *
+     * @return the best column, or {@code -1} if the position had no legal move
+     */
+    public int getBestMove() {
+        return bestMove;
+    } // getBestMove
+
+    /**
+     * Return the fraction of the best column's playouts that the player to move won.
+     *
+     * @return the win rate, from {@code 0} to {@code 1}
+     */
+    public double getWinRate() {
+        return winRate;
+    } // getWinRate
+
+    /**
+     * Return the number of playouts through each column, including playouts kept from
+     * earlier searches.
+     *
+     * @return the visit counts, indexed by column
+     */
+    public int[] getVisits() {
+        return visits.clone();
+    } // getVisits
+
+    /**
+     * Return the number of playouts run by this search.
+     *
+     * @return the playout count
+     */
+    public long getPlayouts() {
+        return playouts;
+    } // getPlayouts
+
+    /**
+     * Return the elapsed time.
+     *
+     * @return the elapsed time, in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    } // getNanos
+
+    /**
+     * Return the search speed.
+     *
+     * @return the number of playouts per second
+     */
+    public long getPlayoutsPerSecond() {
+        if (nanos <= 0) {
+            return playouts;
+        } // if
+        return (long) (playouts * 1e9 / nanos);
+    } // getPlayoutsPerSecond
+
+    @Override
+    public String toString() {
+        return String.format("column %d, %.1f%% wins, %d playouts in %.3f ms, %d playouts/s",
+                             bestMove, winRate * 100, playouts, nanos / 1e6,
+                             getPlayoutsPerSecond());
+    } // toString
+
+} // MonteCarloResult
@@ -0,0 +1,451 @@
+package cs1302.solver;
+
+import cs1302.game.ConnectFour;
+import cs1302.gameutil.GamePhase;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * A {@code MonteCarloSearch} chooses a column by Monte Carlo tree search. Each playout walks
+ * down the tree from the root, choosing moves by UCT (the upper confidence bound of their win
+ * rate), adds one new node where it leaves the tree, and then finishes the game with uniformly
+ * random moves. The result is backed up along the path, and the column with the most playouts
+ * is played. Unlike {@link cs1302.solver.Solver}, the search needs no evaluation function and
+ * gives a useful answer after any number of playouts, which suits the larger grids where an
+ * exact search cannot finish in time.
+ *
+ * <p>
+ * Playouts run on a private copy of the game per thread: moves are played with
+ * {@link cs1302.game.ConnectFour#tryDrop} and taken back with
+ * {@link cs1302.game.ConnectFour#undo}, so a playout allocates at most the one node it adds.
+ * The threads split the work as set by {@link #setParallelism}; with
+ * {@link cs1302.solver.Parallelism#TREE}, node statistics are updated with atomic operations
+ * and virtual losses, without locks.
+ *
+ * <p>
+ * A search stops when its time or playout budget runs out, or when {@link #stop} is called.
+ * The tree is kept afterwards, and a search of a position up to two plies below the previous
+ * root (usually the position after our move and the opponent's reply) starts from the
+ * matching subtree instead of from scratch.
+ */
+public class MonteCarloSearch {
+
+    // Playouts in flight through a node count as this many lost visits.
+    private static final int VIRTUAL_LOSS = 3;
+
+    // Outcomes of the position of a node.
+    private static final byte OPEN = 0;
+    private static final byte WIN = 1;  // the player who moved into the node has won
+    private static final byte DRAW = 2;
+
+    private static final VarHandle VISITS;
+    private static final VarHandle SCORE;
+    private static final VarHandle CHILDREN;
+    private static final VarHandle ELEMENTS = MethodHandles.arrayElementVarHandle(Node[].class);
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            VISITS = lookup.findVarHandle(Node.class, "visits", int.class);
+            SCORE = lookup.findVarHandle(Node.class, "score", long.class);
+            CHILDREN = lookup.findVarHandle(Node.class, "children", Node[].class);
+        } catch (ReflectiveOperationException roe) {
+            throw new ExceptionInInitializerError(roe);
+        } // try
+    } // static
+
+    private final ForkJoinPool pool;     // threads that run the playouts
+    private final SplittableRandom random; // source of the threads' random generators
+    private Parallelism parallelism;     // how the threads share the work
+    private double exploration;          // UCT exploration constant
+    private long maxPlayouts;            // playout budget per search, or 0 for none
+    private boolean reuse;               // whether trees are kept between searches
+    private Node[] roots;                // the trees of the last search
+    private volatile boolean stopped;    // set by stop() to end the current search
+
+    /**
+     * Construct a {@code MonteCarloSearch} that runs playouts on {@code threads} threads with
+     * tree parallelism, an exploration constant of {@code sqrt(2)} and tree reuse.
+     *
+     * @param threads the number of threads
+     * @param seed the seed of the random playouts
+     * @throws IllegalArgumentException if {@code threads} is less than {@code 1}
+     */
+    public MonteCarloSearch(int threads, long seed) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        } // if
+        pool = new ForkJoinPool(threads);
+        random = new SplittableRandom(seed);
+        parallelism = Parallelism.TREE;
+        exploration = Math.sqrt(2);
+        reuse = true;
+    } // MonteCarloSearch
+
+    /**
+     * Return the number of threads this search runs playouts on.
+     *
+     * @return the number of threads
+     */
+    public int getThreads() {
+        return pool.getParallelism();
+    } // getThreads
+
+    /**
+     * Set how the threads share the work. Changing it discards the kept trees.
+     *
+     * @param parallelism root or tree parallelism
+     */
+    public void setParallelism(Parallelism parallelism) {
+        if (parallelism != this.parallelism) {
+            roots = null;
+        } // if
+        this.parallelism = parallelism;
+    } // setParallelism
+
+    /**
+     * Set the UCT exploration constant. Larger values spread playouts more evenly over the
+     * moves; smaller values concentrate them on the moves that have done best so far.
+     *
+     * @param exploration the exploration constant
+     */
+    public void setExploration(double exploration) {
+        this.exploration = exploration;
+    } // setExploration
+
+    /**
+     * Set the number of playouts after which a search stops, whatever its time budget.
+     *
+     * @param maxPlayouts the playout budget, or {@code 0} for no limit
+     */
+    public void setMaxPlayouts(long maxPlayouts) {
+        this.maxPlayouts = maxPlayouts;
+    } // setMaxPlayouts
+
+    /**
+     * Set whether the tree of one search is reused by the next. Turning reuse off discards the
+     * kept trees.
+     *
+     * @param reuse {@code true} to keep trees and {@code false} to start every search afresh
+     */
+    public void setTreeReuse(boolean reuse) {
+        this.reuse = reuse;
+        if (!reuse) {
+            roots = null;
+        } // if
+    } // setTreeReuse
+
+    /**
+     * Ask the search in progress to stop after the playouts in flight. It returns the best
+     * column found so far. This method may be called from any thread.
+     */
+    public void stop() {
+        stopped = true;
+    } // stop
+
+    /**
+     * Stop the threads of this search. It cannot be used afterwards.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    } // shutdown
+
+    /**
+     * Search {@code game} for up to {@code millis} milliseconds or until the playout budget is
+     * spent, whichever comes first. The game is not changed.
+     *
+     * @param game the position to search, with {@code numDropped % 2} to move
+     * @param millis the time budget in milliseconds, or {@code 0} for no limit
+     * @return the most visited column and its statistics
+     * @throws IllegalArgumentException if there is neither a time nor a playout budget
+     */
+    public MonteCarloResult search(ConnectFour game, long millis) {
+        long start = System.nanoTime();
+        if (millis <= 0 && maxPlayouts <= 0) {
+            throw new IllegalArgumentException("A search needs a time or playout budget");
+        } // if
+        long deadline = millis <= 0 ? Long.MAX_VALUE : start + millis * 1_000_000L;
+        stopped = false;
+        int threads = pool.getParallelism();
+        int[] visits = new int[game.getCols()];
+        if (game.legalMoves() == 0 || game.getWinner() != -1) {
+            return new MonteCarloResult(-1, 0, visits, 0, System.nanoTime() - start);
+        } // if
+
+        // start from the matching subtree of the last search, if there is one
+        Node[] trees = new Node[parallelism == Parallelism.ROOT ? threads : 1];
+        for (int t = 0; t < trees.length; t++) {
+            if (reuse && roots != null && roots.length == trees.length) {
+                trees[t] = find(roots[t], game.getKey(), 2);
+            } // if
+            if (trees[t] == null) {
+                trees[t] = new Node(-1, game.getKey(), OPEN);
+            } // if
+        } // for
+        roots = trees;
+
+        List<Callable<Long>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long budget = maxPlayouts <= 0 ? Long.MAX_VALUE
+                : maxPlayouts / threads + (t < maxPlayouts % threads ? 1 : 0);
+            Worker worker = new Worker(new ConnectFour(game), trees[t % trees.length],
+                                       random.split(), budget, deadline,
+                                       parallelism == Parallelism.TREE ? VIRTUAL_LOSS : 1);
+            workers.add(worker::run);
+        } // for
+        long playouts = 0;
+        try {
+            for (Future<Long> worker : pool.invokeAll(workers)) {
+                playouts += worker.get();
+            } // for
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ee) {
+            throw new IllegalStateException("A playout failed", ee.getCause());
+        } // try
+
+        // sum the root statistics of every tree and play the most visited column
+        long[] scores = new long[visits.length];
+        for (Node root : trees) {
+            Node[] children = root.children;
+            for (int col = 0; children != null && col < children.length; col++) {
+                Node child = (Node) ELEMENTS.getAcquire(children, col);
+                if (child != null) {
+                    visits[col] += (int) VISITS.getOpaque(child);
+                    scores[col] += (long) SCORE.getOpaque(child);
+                } // if
+            } // for
+        } // for
+        int best = -1;
+        long legal = game.legalMoves();
+        for (int col : Solver.centerOrder(visits.length)) {
+            if ((legal & (1L << col)) != 0 && (best < 0 || visits[col] > visits[best])) {
+                best = col;
+            } // if
+        } // for
+        double winRate = visits[best] == 0 ? 0.5 : scores[best] / (2.0 * visits[best]);
+        return new MonteCarloResult(best, winRate, visits, playouts, System.nanoTime() - start);
+    } // search
+
+    /**
+     * Return the node for the position with key {@code key} among {@code node} and its
+     * descendants at most {@code depth} plies below it, or {@code null} if there is none.
+     *
+     * @param node the root of the subtree to look in
+     * @param key the position key
+     * @param depth the number of plies to look down
+     * @return the node, or {@code null}
+     */
+    private static Node find(Node node, long key, int depth) {
+        if (node.key == key) {
+            return node;
+        } // if
+        Node[] children = node.children;
+        if (depth == 0 || children == null) {
+            return null;
+        } // if
+        for (Node child : children) {
+            Node found = child == null ? null : find(child, key, depth - 1);
+            if (found != null) {
+                return found;
+            } // if
+        } // for
+        return null;
+    } // find
+
+    /**
+     * A node of the search tree. Its statistics are from the point of view of the player who
+     * moved into it: {@code score} counts two points per won playout and one per draw.
+     */
+    private static final class Node {
+
+        final int move;   // the column played to reach this node, or -1 at the root
+        final long key;   // the key of the position
+        final byte outcome; // OPEN, WIN or DRAW
+        volatile Node[] children; // by column; null until the node is expanded
+        int visits;       // playouts through this node, plus virtual losses in flight
+        long score;       // points won by the player who moved into this node
+
+        /**
+         * Construct a {@code Node}.
+         *
+         * @param move the column played to reach the node
+         * @param key the key of the position
+         * @param outcome whether the position is open, won or drawn
+         */
+        Node(int move, long key, byte outcome) {
+            this.move = move;
+            this.key = key;
+            this.outcome = outcome;
+        } // Node
+
+    } // Node
+
+    /**
+     * The playout loop of one thread.
+     */
+    private final class Worker {
+
+        private final ConnectFour game;      // private copy of the root position
+        private final Node root;             // the tree this worker grows
+        private final SplittableRandom rng;  // source of random moves
+        private final long budget;           // playouts this worker may run
+        private final long deadline;         // System.nanoTime() value at which it stops
+        private final int loss;              // visits added on the way down
+        private final int rootPly;           // number of tokens at the root
+        private final int[] order;           // columns, center first
+        private final Node[] path;           // nodes visited by the current playout
+
+        /**
+         * Construct a {@code Worker}.
+         *
+         * @param game a copy of the root position
+         * @param root the tree to grow
+         * @param rng the random generator
+         * @param budget the number of playouts to run at most
+         * @param deadline the {@link System#nanoTime} value at which to stop
+         * @param loss the visits added to a node on the way down ({@code 1} for no virtual
+         *     loss)
+         */
+        Worker(ConnectFour game, Node root, SplittableRandom rng, long budget, long deadline,
+               int loss) {
+            this.game = game;
+            this.root = root;
+            this.rng = rng;
+            this.budget = budget;
+            this.deadline = deadline;
+            this.loss = loss;
+            rootPly = game.getPhase() == GamePhase.READY ? 0 : game.getNumDropped();
+            order = Solver.centerOrder(game.getCols());
+            path = new Node[game.getRows() * game.getCols() - rootPly + 1];
+        } // Worker
+
+        /**
+         * Run playouts until the budget or the time runs out, or the search is stopped.
+         *
+         * @return the number of playouts run
+         */
+        long run() {
+            long count = 0;
+            while (count < budget && !stopped && System.nanoTime() < deadline) {
+                playout();
+                count++;
+            } // while
+            return count;
+        } // run
+
+        /**
+         * Run one playout: select a path through the tree, add a node, finish the game at
+         * random, back the result up, and take every move back.
+         */
+        private void playout() {
+            Node node = root;
+            int length = 0;
+            VISITS.getAndAdd(node, loss);
+            path[length++] = node;
+            while (node.outcome == OPEN) {
+                Node[] children = node.children;
+                if (children == null) {
+                    // a leaf is only expanded once another playout has passed through it
+                    if (node != root && (int) VISITS.getOpaque(node) <= loss) {
+                        break;
+                    } // if
+                    CHILDREN.compareAndSet(node, null, new Node[order.length]);
+                    children = node.children;
+                } // if
+                int col = select(node, children);
+                game.tryDrop((rootPly + length - 1) & 1, col);
+                Node child = (Node) ELEMENTS.getAcquire(children, col);
+                if (child == null) {
+                    byte outcome = game.getWinner() != -1 ? WIN
+                        : game.legalMoves() == 0 ? DRAW : OPEN;
+                    Node made = new Node(col, game.getKey(), outcome);
+                    child = (Node) ELEMENTS.compareAndExchange(children, col, null, made);
+                    child = child == null ? made : child;
+                } // if
+                VISITS.getAndAdd(child, loss);
+                path[length++] = child;
+                node = child;
+            } // while
+
+            // the winner is 0 or 1, or -1 for a draw
+            int ply = rootPly + length - 1;
+            int winner = node.outcome == WIN ? (ply - 1) & 1 : node.outcome == DRAW ? -1
+                : rollout(ply);
+            for (int i = 0; i < length; i++) {
+                int mover = (rootPly + i - 1) & 1;
+                VISITS.getAndAdd(path[i], 1 - loss);
+                SCORE.getAndAdd(path[i], winner == mover ? 2L : winner == -1 ? 1L : 0L);
+                path[i] = null;
+            } // for
+            for (int i = game.getNumDropped(); i > rootPly; i--) {
+                game.undo();
+            } // for
+        } // playout
+
+        /**
+         * Return the legal column of {@code node} with the highest UCT value. A column that has
+         * never been tried is returned at once.
+         *
+         * @param node the node to choose at
+         * @param children the children of {@code node}
+         * @return the column
+         */
+        private int select(Node node, Node[] children) {
+            long legal = game.legalMoves();
+            double logVisits = Math.log(Math.max(1, (int) VISITS.getOpaque(node)));
+            int best = -1;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int col : order) {
+                if ((legal & (1L << col)) == 0) {
+                    continue;
+                } // if
+                Node child = (Node) ELEMENTS.getAcquire(children, col);
+                int visits = child == null ? 0 : (int) VISITS.getOpaque(child);
+                if (visits == 0) {
+                    return col;
+                } // if
+                double value = (long) SCORE.getOpaque(child) / (2.0 * visits)
+                    + exploration * Math.sqrt(logVisits / visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = col;
+                } // if
+            } // for
+            return best;
+        } // select
+
+        /**
+         * Finish the game with uniformly random moves.
+         *
+         * @param ply the number of tokens in the grid
+         * @return the player who won, or {@code -1} for a draw
+         */
+        private int rollout(int ply) {
+            while (true) {
+                long legal = game.legalMoves();
+                if (legal == 0) {
+                    return -1;
+                } // if
+                for (int skip = rng.nextInt(Long.bitCount(legal)); skip > 0; skip--) {
+                    legal &= legal - 1;
+                } // for
+                int p = ply & 1;
+                game.tryDrop(p, Long.numberOfTrailingZeros(legal));
+                ply++;
+                if (game.getWinner() != -1) {
+                    return p;
+                } // if
+            } // while
+        } // rollout
+
+    } // Worker
+
+} // MonteCarloSearch
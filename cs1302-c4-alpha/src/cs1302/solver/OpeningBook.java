@@ -0,0 +1,249 @@
+package cs1302.solver;
+
+import cs1302.game.ConnectFour;
+import cs1302.gameutil.GamePhase;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * An {@code OpeningBook} holds the solved scores of every position of one grid size up to a
+ * fixed number of plies. Books are written once by {@link cs1302.solver.OpeningBookGenerator}
+ * and opened read-only with {@link java.nio.channels.FileChannel#map}, so opening a book reads
+ * nothing up front, probes touch only the pages they need, and every JVM on a host that opens
+ * the same file shares one copy of it in the page cache.
+ *
+ * <p>
+ * A book file is a {@value #HEADER}-byte header followed by one {@value #ENTRY}-byte entry per
+ * position, sorted by {@link cs1302.game.ConnectFour#getCanonicalKey canonical key} so that a
+ * probe is a binary search. All values are big-endian.
+ *
+ * <pre>
+ * header: int magic 'C4BK', int version, byte rows, byte cols, byte plies, byte weak,
+ *         long entry count, 4 bytes padding
+ * entry:  long canonical key, byte score, byte (best column + 1) | bound &lt;&lt; 4
+ * </pre>
+ *
+ * <p>
+ * The bound is coded as in {@link cs1302.solver.TranspositionTable}, and the best column, like
+ * the key, refers to the canonical orientation of the position. A book generated in weak mode
+ * only records whether each position is a win, loss or draw.
+ */
+public class OpeningBook {
+
+    /** The first four bytes of every book file. */
+    public static final int MAGIC = 0x4334424b;
+
+    /** The version of the file format. */
+    public static final int VERSION = 1;
+
+    /** The size of the file header in bytes. */
+    public static final int HEADER = 24;
+
+    /** The size of one entry in bytes. */
+    public static final int ENTRY = 10;
+
+    private final ByteBuffer map; // the whole file
+    private final int rows;       // rows of the positions in the book
+    private final int cols;       // columns of the positions in the book
+    private final int plies;      // the book holds every position with at most this many tokens
+    private final boolean weak;   // whether the scores are only win, loss or draw
+    private final int count;      // number of entries
+
+    /**
+     * Construct an {@code OpeningBook} over a mapped book file.
+     *
+     * @param map the mapped file
+     * @throws IOException if the file is not a book
+     */
+    private OpeningBook(ByteBuffer map) throws IOException {
+        this.map = map;
+        if (map.capacity() < HEADER || map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+            throw new IOException("Not an opening book (version " + VERSION + ")");
+        } // if
+        rows = map.get(8);
+        cols = map.get(9);
+        plies = map.get(10);
+        weak = map.get(11) != 0;
+        long entries = map.getLong(12);
+        if (entries < 0 || HEADER + entries * ENTRY != map.capacity()) {
+            throw new IOException("The opening book is truncated");
+        } // if
+        count = (int) entries;
+    } // OpeningBook
+
+    /**
+     * Open the book stored in {@code file}. The file stays mapped until the book is garbage
+     * collected.
+     *
+     * @param file the book file
+     * @return the book
+     * @throws IOException if the file cannot be read or is not a book
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The opening book is larger than 2 GB");
+            } // if
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new OpeningBook(map);
+        } // try
+    } // open
+
+    /**
+     * Write a book file holding {@code entries}.
+     *
+     * @param file the file to create or replace
+     * @param rows the number of rows of the positions
+     * @param cols the number of columns of the positions
+     * @param plies the largest number of tokens of the positions
+     * @param weak whether the scores are only win, loss or draw
+     * @param entries canonical keys, in ascending order, mapped to entries packed as by
+     *     {@link cs1302.solver.TranspositionTable}
+     * @throws IOException if the file cannot be written
+     */
+    static void write(Path file, int rows, int cols, int plies, boolean weak,
+                      Map<Long, Long> entries) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            buffer.putInt(MAGIC).putInt(VERSION);
+            buffer.put((byte) rows).put((byte) cols).put((byte) plies).put((byte) (weak ? 1 : 0));
+            buffer.putLong(entries.size()).putInt(0);
+            for (Map.Entry<Long, Long> entry : entries.entrySet()) {
+                if (buffer.remaining() < ENTRY) {
+                    drain(channel, buffer);
+                } // if
+                long data = entry.getValue();
+                int code = (int) (data >>> 8) & 3;
+                buffer.putLong(entry.getKey());
+                buffer.put((byte) TranspositionTable.score(data));
+                buffer.put((byte) (TranspositionTable.move(data) + 1 | code << 4));
+            } // for
+            drain(channel, buffer);
+        } // try
+    } // write
+
+    /**
+     * Write the contents of {@code buffer} to {@code channel} and clear it.
+     *
+     * @param channel the channel to write to
+     * @param buffer the bytes to write
+     * @throws IOException if the bytes cannot be written
+     */
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        } // while
+        buffer.clear();
+    } // drain
+
+    /**
+     * Return whether this book holds positions of {@code game}'s grid size. Books only hold
+     * connect four positions, so a game with another run length never fits.
+     *
+     * @param game the game
+     * @return {@code true} if the grid sizes match and {@code false} otherwise
+     */
+    public boolean fits(ConnectFour game) {
+        return game.getRows() == rows && game.getCols() == cols && game.getRunLength() == 4;
+    } // fits
+
+    /**
+     * Return the largest number of tokens of the positions in this book.
+     *
+     * @return the number of plies the book covers
+     */
+    public int getPlies() {
+        return plies;
+    } // getPlies
+
+    /**
+     * Return whether the scores in this book only say whether a position is won, lost or
+     * drawn.
+     *
+     * @return {@code true} for a weak book and {@code false} for exact scores
+     */
+    public boolean isWeak() {
+        return weak;
+    } // isWeak
+
+    /**
+     * Return the number of positions in this book.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return count;
+    } // size
+
+    /**
+     * Return the entry for the position with canonical key {@code key}, packed as by
+     * {@link cs1302.solver.TranspositionTable} with depth
+     * {@link cs1302.solver.TranspositionTable#PROVEN}, or {@code 0} if the book does not hold
+     * it. This method may be called from any thread.
+     *
+     * @param key the canonical position key
+     * @return the packed entry, or {@code 0}
+     */
+    public long probe(long key) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int offset = HEADER + mid * ENTRY;
+            long found = map.getLong(offset);
+            if (found < key) {
+                low = mid + 1;
+            } else if (found > key) {
+                high = mid - 1;
+            } else {
+                int info = map.get(offset + 9);
+                int code = info >>> 4 & 3;
+                Bound bound = code == 1 ? Bound.EXACT : code == 2 ? Bound.LOWER : Bound.UPPER;
+                return TranspositionTable.pack(map.get(offset + 8), bound,
+                                               TranspositionTable.PROVEN, (info & 15) - 1, 0);
+            } // if
+        } // while
+        return 0;
+    } // probe
+
+    /**
+     * Return the best column and score of {@code game} as recorded in this book, or
+     * {@code null} if the book does not hold the position.
+     *
+     * @param game the position to look up
+     * @return the recorded result, or {@code null}
+     */
+    public SearchResult lookup(ConnectFour game) {
+        long start = System.nanoTime();
+        int ply = game.getPhase() == GamePhase.READY ? 0 : game.getNumDropped();
+        if (!fits(game) || ply > plies) {
+            return null;
+        } // if
+        long entry = probe(game.getCanonicalKey());
+        if (entry == 0) {
+            return null;
+        } // if
+        int move = TranspositionTable.move(entry);
+        if (game.isMirrorCanonical() && move >= 0) {
+            move = cols - 1 - move;
+        } // if
+        return new SearchResult(move, TranspositionTable.score(entry),
+                                TranspositionTable.bound(entry), rows * cols - ply, 0,
+                                System.nanoTime() - start);
+    } // lookup
+
+    @Override
+    public String toString() {
+        return String.format("%dx%d opening book, %d positions up to %d plies%s", rows, cols,
+                             count, plies, weak ? ", weak" : "");
+    } // toString
+
+} // OpeningBook
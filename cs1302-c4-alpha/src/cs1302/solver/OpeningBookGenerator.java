@@ -0,0 +1,214 @@
+package cs1302.solver;
+
+import cs1302.game.ConnectFour;
+import cs1302.game.DropResult;
+import cs1302.gameutil.Token;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A command-line program that builds an {@link cs1302.solver.OpeningBook}. It enumerates every
+ * position of one grid size with at most {@code PLIES} tokens in which nobody has won yet,
+ * keeping one of each pair of mirror images, and solves them all. The deepest positions are
+ * solved first, and every solver shares one transposition table, so the proven results of one
+ * ply make the next, shallower ply cheaper.
+ *
+ * <pre>
+ * $ java -cp bin:lib/cs1302-gameutil.jar cs1302.solver.OpeningBookGenerator ROWS COLS PLIES FILE
+ *     [millis=MS] [threads=N] [table=MB] [moves=COLUMNS] [weak]
+ * </pre>
+ *
+ * <p>
+ * With {@code millis=MS}, each position gets at most that many milliseconds, and positions
+ * that are not solved in time are left out of the book; the solver then searches them at run
+ * time as usual. The default is to solve every position, however long it takes. With
+ * {@code moves=COLUMNS}, e.g. {@code moves=3342}, only the positions that follow that opening
+ * are enumerated, so a book can cover one line of play to more plies than a whole grid allows.
+ */
+public class OpeningBookGenerator {
+
+    /**
+     * Entry point to the {@link cs1302.solver.OpeningBookGenerator} program.
+     *
+     * @param args the command-line arguments
+     * @throws IOException if the book cannot be written
+     * @throws InterruptedException if the program is interrupted while solving
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 4) {
+            System.out.println("Usage: OpeningBookGenerator ROWS COLS PLIES FILE [millis=MS] "
+                               + "[threads=N] [table=MB] [moves=COLUMNS] [weak]");
+            System.exit(1);
+        } // if
+        int rows = Integer.parseInt(args[0]);
+        int cols = Integer.parseInt(args[1]);
+        int plies = Integer.parseInt(args[2]);
+        Path file = Paths.get(args[3]);
+        long millis = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int megabytes = 256;
+        boolean weak = false;
+        String opening = "";
+        for (int i = 4; i < args.length; i++) {
+            if (args[i].startsWith("millis=")) {
+                millis = Long.parseLong(args[i].substring(7));
+            } else if (args[i].startsWith("threads=")) {
+                threads = Integer.parseInt(args[i].substring(8));
+            } else if (args[i].startsWith("table=")) {
+                megabytes = Integer.parseInt(args[i].substring(6));
+            } else if (args[i].startsWith("moves=")) {
+                opening = args[i].substring(6);
+            } else if (args[i].equalsIgnoreCase("weak")) {
+                weak = true;
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            } // if
+        } // for
+        if (opening.length() > plies) {
+            throw new IllegalArgumentException("The opening is longer than " + plies + " plies");
+        } // if
+
+        ConnectFour game = new ConnectFour(rows, cols);
+        game.setPlayerTokens(Token.RED, Token.BLUE);
+        SolverDriver.play(game, opening);
+        List<List<String>> levels = new ArrayList<>();
+        for (int ply = 0; ply <= plies; ply++) {
+            levels.add(new ArrayList<>());
+        } // for
+        enumerate(game, opening, plies, levels, new HashSet<>());
+
+        TranspositionTable table = new TranspositionTable(megabytes);
+        Map<Long, Long> book = new ConcurrentSkipListMap<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int ply = plies; ply >= 0; ply--) {
+            long start = System.nanoTime();
+            List<String> level = levels.get(ply);
+            int before = book.size();
+            long nodes = solveLevel(pool, threads, level, rows, cols, weak, millis, table, book);
+            System.out.printf("ply %2d: %8d positions, %8d solved, %14d nodes, %10.1f s%n", ply,
+                              level.size(), book.size() - before, nodes,
+                              (System.nanoTime() - start) / 1e9);
+        } // for
+        pool.shutdown();
+
+        OpeningBook.write(file, rows, cols, plies, weak, book);
+        System.out.println(OpeningBook.open(file));
+    } // main
+
+    /**
+     * Add {@code game} and every position reachable from it within {@code plies} tokens, other
+     * than won positions, to {@code levels}, one list of move sequences per ply. Of a position
+     * and its mirror image, only the first one found is added.
+     *
+     * @param game the position to start from
+     * @param moves the columns played to reach {@code game}
+     * @param plies the largest number of tokens to enumerate
+     * @param levels the move sequences found so far, by ply
+     * @param seen the canonical keys of the positions found so far
+     */
+    private static void enumerate(ConnectFour game, String moves, int plies,
+                                  List<List<String>> levels, Set<Long> seen) {
+        if (!seen.add(game.getCanonicalKey())) {
+            return;
+        } // if
+        levels.get(moves.length()).add(moves);
+        if (moves.length() == plies) {
+            return;
+        } // if
+        int p = moves.length() % 2;
+        for (int col = 0; col < game.getCols(); col++) {
+            if (game.tryDrop(p, col) == DropResult.OK) {
+                if (game.getWinner() == -1 && game.legalMoves() != 0) {
+                    enumerate(game, moves + col, plies, levels, seen);
+                } // if
+                game.undo();
+            } // if
+        } // for
+    } // enumerate
+
+    /**
+     * Solve every position of one ply on {@code threads} threads that share {@code table}.
+     *
+     * @param pool the threads
+     * @param threads the number of threads in {@code pool}
+     * @param level the columns played to reach each position
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param weak whether to solve in weak mode
+     * @param millis the time budget per position, or {@code 0} for no limit
+     * @param table the table the solvers share
+     * @param book the entries found so far, by canonical key
+     * @return the number of nodes searched
+     * @throws InterruptedException if the program is interrupted while solving
+     */
+    private static long solveLevel(ExecutorService pool, int threads, List<String> level,
+                                   int rows, int cols, boolean weak, long millis,
+                                   TranspositionTable table, Map<Long, Long> book)
+        throws InterruptedException {
+        AtomicLong nodes = new AtomicLong();
+        AtomicInteger next = new AtomicInteger();
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(() -> {
+                Solver solver = new Solver();
+                solver.setWeak(weak);
+                solver.setTable(table);
+                for (int i = next.getAndIncrement(); i < level.size(); i = next.getAndIncrement()) {
+                    nodes.addAndGet(solve(rows, cols, level.get(i), solver, millis, book));
+                } // for
+                return null;
+            });
+        } // for
+        for (Future<Void> worker : pool.invokeAll(workers)) {
+            try {
+                worker.get();
+            } catch (ExecutionException ee) {
+                throw new IllegalStateException("A solver failed", ee.getCause());
+            } // try
+        } // for
+        return nodes.get();
+    } // solveLevel
+
+    /**
+     * Solve one position and record it in {@code book} if it was solved in time.
+     *
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param moves the columns played to reach the position
+     * @param solver the solver to use
+     * @param millis the time budget, or {@code 0} for no limit
+     * @param book the entries found so far, by canonical key
+     * @return the number of nodes searched
+     */
+    private static long solve(int rows, int cols, String moves, Solver solver, long millis,
+                              Map<Long, Long> book) {
+        ConnectFour game = new ConnectFour(rows, cols);
+        game.setPlayerTokens(Token.RED, Token.BLUE);
+        SolverDriver.play(game, moves);
+        SearchResult result = solver.search(game, millis);
+        if (result.getBound() != Bound.HEURISTIC) {
+            int move = result.getBestMove();
+            if (game.isMirrorCanonical() && move >= 0) {
+                move = cols - 1 - move;
+            } // if
+            book.put(game.getCanonicalKey(), TranspositionTable.pack(
+                         result.getScore(), result.getBound(), TranspositionTable.PROVEN, move, 0));
+        } // if
+        return result.getNodes();
+    } // solve
+
+} // OpeningBookGenerator
@@ -0,0 +1,248 @@
+package cs1302.solver;
+
+import cs1302.game.ConnectFour;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@code ParallelSolver} is a {@link cs1302.solver.Solver} that spreads its search over a
+ * {@link java.util.concurrent.ForkJoinPool} using young-brothers-wait splitting. At each of the
+ * top {@link #setSplitLevels split levels} of the tree, the first (eldest) move is searched on
+ * the calling thread to establish a bound, and the remaining (young) moves are then searched in
+ * parallel, each on its own copy of the game.
+ *
+ * <p>
+ * The young brothers are searched with the window the eldest established, which is never
+ * narrower than the window the sequential search would have used. Their scores are then
+ * replayed in search order exactly as the sequential search would have consumed them, so the
+ * best column, score and bound are identical to those of {@code Solver} for the same position
+ * and settings; only the node counts and times differ.
+ *
+ * <p>
+ * A {@link cs1302.solver.TranspositionTable} set on a {@code ParallelSolver} is shared by all of
+ * its threads. Which entries a thread finds then depends on timing, so exact scores still match
+ * the sequential search but depth-limited scores and the choice between equally good columns
+ * may not.
+ */
+public class ParallelSolver extends Solver {
+
+    // Subtrees shallower than this are not worth the cost of copying a game for.
+    private static final int MIN_SPLIT_DEPTH = 8;
+
+    private final ForkJoinPool pool; // threads that search the young brothers
+    private int splitLevels;         // number of tree levels, from the root, that are split
+
+    /**
+     * Construct a {@code ParallelSolver} that searches with {@code threads} threads.
+     *
+     * @param threads the number of threads
+     * @throws IllegalArgumentException if {@code threads} is less than {@code 1}
+     */
+    public ParallelSolver(int threads) {
+        super(new AtomicBoolean());
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        } // if
+        pool = new ForkJoinPool(threads);
+        splitLevels = 2;
+    } // ParallelSolver
+
+    /**
+     * Construct a helper that searches one young brother of {@code parent}'s current position
+     * on a copy of the game.
+     *
+     * @param parent the solver whose position is being split
+     */
+    private ParallelSolver(ParallelSolver parent) {
+        super(parent.stopFlag);
+        pool = parent.pool;
+        splitLevels = parent.splitLevels;
+        table = parent.table;
+        book = parent.book;
+        cache = parent.cache;
+        bookPlies = parent.bookPlies;
+        game = new ConnectFour(parent.game);
+        cells = parent.cells;
+        packable = parent.packable;
+        rootPly = parent.rootPly;
+        ply = parent.ply;
+        order = parent.order;
+        alphaRoot = parent.alphaRoot;
+        betaRoot = parent.betaRoot;
+        deadline = parent.deadline;
+    } // ParallelSolver
+
+    /**
+     * Return the number of threads this solver searches with.
+     *
+     * @return the number of threads
+     */
+    public int getThreads() {
+        return pool.getParallelism();
+    } // getThreads
+
+    /**
+     * Set how many levels of the tree, counted from the root, are split between threads. More
+     * levels create more, smaller tasks.
+     *
+     * @param splitLevels the number of levels ({@code 1} splits only the root)
+     */
+    public void setSplitLevels(int splitLevels) {
+        this.splitLevels = splitLevels;
+    } // setSplitLevels
+
+    /**
+     * Stop the threads of this solver. The solver cannot be used afterwards.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    } // shutdown
+
+    /**
+     * {@inheritDoc} Near the root, the eldest move is searched first and the young brothers are
+     * then searched in parallel and replayed in order.
+     */
+    @Override
+    int searchMoves(int alpha, int beta, int depth, int first) {
+        if (ply - rootPly >= splitLevels || depth < MIN_SPLIT_DEPTH) {
+            return super.searchMoves(alpha, beta, depth, first);
+        } // if
+
+        // the moves in the order the sequential search would try them
+        boolean root = ply == rootPly;
+        long legal = game.legalMoves();
+        int previous = first;
+        int[] cols = new int[order.length];
+        int count = 0;
+        if (previous >= 0 && (legal & (1L << previous)) != 0) {
+            cols[count++] = previous;
+        } // if
+        for (int col : order) {
+            if (col != previous && (legal & (1L << col)) != 0) {
+                cols[count++] = col;
+            } // if
+        } // for
+
+        int best = searchChild(cols[0], alpha, beta, depth, true);
+        if (aborted) {
+            return 0;
+        } // if
+        if (root) {
+            best = Math.max(alphaRoot, Math.min(betaRoot, best));
+        } // if
+        nodeBest = cols[0];
+        if (best > alpha) {
+            alpha = best;
+        } // if
+        if (alpha >= beta || count == 1) {
+            return best;
+        } // if
+
+        Brother[] brothers = new Brother[count - 1];
+        for (int i = 1; i < count; i++) {
+            brothers[i - 1] = new Brother(new ParallelSolver(this), cols[i], alpha, beta, depth);
+        } // for
+        if (ForkJoinTask.getPool() == pool) {
+            ForkJoinTask.invokeAll(brothers);
+        } else {
+            pool.invoke(new Batch(brothers));
+        } // if
+
+        for (Brother brother : brothers) {
+            nodes += brother.helper.nodes;
+            truncated |= brother.helper.truncated;
+            aborted |= brother.helper.aborted;
+        } // for
+        if (aborted) {
+            return 0;
+        } // if
+
+        // consume the scores as the sequential search would have
+        int bestCol = cols[0];
+        for (Brother brother : brothers) {
+            int score = brother.score;
+            if (root) {
+                score = Math.max(alphaRoot, Math.min(betaRoot, score));
+            } // if
+            if (score > best) {
+                best = score;
+                bestCol = brother.col;
+            } // if
+            if (score > alpha) {
+                alpha = score;
+            } // if
+            if (alpha >= beta) {
+                break;
+            } // if
+        } // for
+        nodeBest = bestCol;
+        return best;
+    } // searchMoves
+
+    /**
+     * A task that searches one young brother with a full window on a helper's copy of the game.
+     */
+    private static class Brother extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ParallelSolver helper;
+        private final int col;
+        private final int alpha;
+        private final int beta;
+        private final int depth;
+        private int score;
+
+        /**
+         * Construct a {@code Brother} task.
+         *
+         * @param helper the solver that owns the copy of the game
+         * @param col the column to play
+         * @param alpha the lower bound of the search window
+         * @param beta the upper bound of the search window
+         * @param depth the depth limit of the parent, in plies
+         */
+        Brother(ParallelSolver helper, int col, int alpha, int beta, int depth) {
+            this.helper = helper;
+            this.col = col;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.depth = depth;
+        } // Brother
+
+        @Override
+        protected void compute() {
+            score = helper.searchChild(col, alpha, beta, depth, true);
+        } // compute
+
+    } // Brother
+
+    /**
+     * A task that runs a batch of {@link Brother} tasks, used to enter the pool from a thread
+     * that does not belong to it.
+     */
+    private static class Batch extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Brother[] brothers;
+
+        /**
+         * Construct a {@code Batch} task.
+         *
+         * @param brothers the tasks to run
+         */
+        Batch(Brother[] brothers) {
+            this.brothers = brothers;
+        } // Batch
+
+        @Override
+        protected void compute() {
+            ForkJoinTask.invokeAll(brothers);
+        } // compute
+
+    } // Batch
+
+} // ParallelSolver
@@ -0,0 +1,21 @@
+package cs1302.solver;
+
+/**
+ * How a {@link cs1302.solver.MonteCarloSearch} spreads its playouts over several threads.
+ */
+public enum Parallelism {
+
+    /**
+     * Each thread grows its own tree from the root, and the visit counts of the root moves are
+     * summed at the end. The threads never touch shared state while searching.
+     */
+    ROOT,
+
+    /**
+     * All threads grow one shared tree. Node statistics are updated with atomic operations, and
+     * a thread that passes through a node adds a virtual loss to it until its playout is backed
+     * up, which steers the other threads to different parts of the tree.
+     */
+    TREE;
+
+} // Parallelism
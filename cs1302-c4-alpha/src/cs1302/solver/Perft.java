@@ -0,0 +1,211 @@
+package cs1302.solver;
+
+import cs1302.game.ConnectFour;
+import cs1302.game.Player;
+import cs1302.gameutil.GamePhase;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A {@code Perft} counts the positions reachable from a {@link cs1302.game.ConnectFour}
+ * position in an exact number of drops. Every drop is played with
+ * {@link cs1302.game.ConnectFour#dropToken}, checked with
+ * {@link cs1302.game.ConnectFour#isLastDropConnectFour} and taken back with
+ * {@link cs1302.game.ConnectFour#undo}, so the count is a check of those methods and its speed
+ * a measure of them. A position in which the game is won is counted if it is at the depth but
+ * is not played on.
+ *
+ * <p>
+ * The counts are divided by the first column dropped into, and the subtrees under the first
+ * {@value #SPLIT_LEVELS} drops are counted in parallel on a
+ * {@link java.util.concurrent.ForkJoinPool}, each on its own copy of the game. With
+ * {@linkplain #setDedup deduplication}, a position reached through different orders of the
+ * same drops is counted and played on only once, so the count is the number of distinct
+ * positions at the depth; each position is then counted under the first column it was reached
+ * through, which may differ from run to run when there are several threads.
+ */
+public class Perft {
+
+    // Number of tree levels, from the root, whose subtrees are counted in parallel.
+    private static final int SPLIT_LEVELS = 2;
+
+    // Subtrees shallower than this are not worth the cost of copying a game for.
+    private static final int MIN_SPLIT_DEPTH = 4;
+
+    private final ForkJoinPool pool; // threads that count the subtrees
+    private int dedupMegabytes;      // size of the set of positions seen, or 0 for none
+
+    /**
+     * Construct a {@code Perft} that counts with {@code threads} threads.
+     *
+     * @param threads the number of threads
+     * @throws IllegalArgumentException if {@code threads} is less than {@code 1}
+     */
+    public Perft(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        } // if
+        pool = new ForkJoinPool(threads);
+    } // Perft
+
+    /**
+     * Return the number of threads this counter uses.
+     *
+     * @return the number of threads
+     */
+    public int getThreads() {
+        return pool.getParallelism();
+    } // getThreads
+
+    /**
+     * Set whether positions are deduplicated, and the size of the set that remembers them. The
+     * set needs 8 bytes for every position reached at any depth up to the one counted.
+     *
+     * @param megabytes the size of the set in MiB, or {@code 0} to count every path
+     */
+    public void setDedup(int megabytes) {
+        dedupMegabytes = megabytes;
+    } // setDedup
+
+    /**
+     * Stop the threads of this counter. The counter cannot be used afterwards.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    } // shutdown
+
+    /**
+     * Count the positions reachable from {@code game} in exactly {@code depth} drops, the
+     * players alternating as in the CLI. The game is not changed.
+     *
+     * @param game the position to count from
+     * @param depth the number of drops
+     * @return the counts and the time they took
+     * @throws IllegalArgumentException if {@code depth} is negative
+     * @throws IllegalStateException if the game's player tokens have not been set, or the
+     *     position set is too small to hold every position
+     */
+    public PerftResult perft(ConnectFour game, int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("The depth cannot be negative: " + depth);
+        } // if
+        long start = System.nanoTime();
+        ConnectFour root = new ConnectFour(game);
+        root.setEarlyDraw(false);
+        if (root.getPhase() == GamePhase.PLAYABLE) {
+            root.isLastDropConnectFour(); // ends the game if the last drop won
+        } // if
+        PositionSet seen = dedupMegabytes > 0 ? new PositionSet(dedupMegabytes) : null;
+        if (seen != null) {
+            seen.add(root.getKey());
+        } // if
+
+        long[] divide = new long[root.getCols()];
+        if (depth > 0 && root.getPhase() != GamePhase.OVER) {
+            int player = Player.toMove(root);
+            List<Count> counts = new ArrayList<>();
+            for (long open = root.legalMoves(); open != 0; open &= open - 1) {
+                Count count = new Count(new ConnectFour(root), player,
+                                        Long.numberOfTrailingZeros(open), depth, 0, seen);
+                pool.execute(count);
+                counts.add(count);
+            } // for
+            for (Count count : counts) {
+                divide[count.col] = count.join();
+            } // for
+        } // if
+        return new PerftResult(depth, divide, System.nanoTime() - start);
+    } // perft
+
+    /**
+     * Count the positions reachable from {@code game} in exactly {@code depth} drops on the
+     * calling thread, starting with {@code player}'s drop.
+     *
+     * @param game the position to count from, which is left as it was found
+     * @param player the player to move
+     * @param depth the number of drops, at least {@code 1}
+     * @param seen the positions already counted, or {@code null} to count every path
+     * @return the number of positions
+     */
+    private static long count(ConnectFour game, int player, int depth, PositionSet seen) {
+        long nodes = 0;
+        for (long open = game.legalMoves(); open != 0; open &= open - 1) {
+            game.dropToken(player, Long.numberOfTrailingZeros(open));
+            if (seen == null || seen.add(game.getKey())) {
+                if (depth == 1) {
+                    nodes++;
+                } else if (!game.isLastDropConnectFour()) {
+                    nodes += count(game, 1 - player, depth - 1, seen);
+                } // if
+            } // if
+            game.undo();
+        } // for
+        return nodes;
+    } // count
+
+    /**
+     * A task that counts the positions reachable through one drop on its own copy of the
+     * game, splitting the drops after it into further tasks near the root.
+     */
+    private static final class Count extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ConnectFour game;
+        private final int player;
+        private final int col;
+        private final int depth;
+        private final int level;
+        private final PositionSet seen;
+
+        /**
+         * Construct a {@code Count} task.
+         *
+         * @param game the copy of the game to drop on, which the task then owns
+         * @param player the player who drops
+         * @param col the column dropped into
+         * @param depth the number of drops to count, including this one
+         * @param level the number of drops between the root and this one
+         * @param seen the positions already counted, or {@code null} to count every path
+         */
+        Count(ConnectFour game, int player, int col, int depth, int level, PositionSet seen) {
+            this.game = game;
+            this.player = player;
+            this.col = col;
+            this.depth = depth;
+            this.level = level;
+            this.seen = seen;
+        } // Count
+
+        @Override
+        protected Long compute() {
+            game.dropToken(player, col);
+            if (seen != null && !seen.add(game.getKey())) {
+                return 0L;
+            } else if (depth == 1) {
+                return 1L;
+            } else if (game.isLastDropConnectFour()) {
+                return 0L;
+            } else if (level + 1 >= SPLIT_LEVELS || depth - 1 < MIN_SPLIT_DEPTH) {
+                return count(game, 1 - player, depth - 1, seen);
+            } // if
+
+            List<Count> children = new ArrayList<>();
+            for (long open = game.legalMoves(); open != 0; open &= open - 1) {
+                children.add(new Count(new ConnectFour(game), 1 - player,
+                                       Long.numberOfTrailingZeros(open), depth - 1, level + 1,
+                                       seen));
+            } // for
+            long nodes = 0;
+            for (Count child : ForkJoinTask.invokeAll(children)) {
+                nodes += child.join();
+            } // for
+            return nodes;
+        } // compute
+
+    } // Count
+
+} // Perft
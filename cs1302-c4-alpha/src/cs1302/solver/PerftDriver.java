@@ -0,0 +1,97 @@
+package cs1302.solver;
+
+import cs1302.game.ConnectFour;
+import cs1302.gameutil.Token;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A command-line program that counts positions with a {@link cs1302.solver.Perft} and prints,
+ * for every depth up to the one given, the exact count and the counting speed.
+ *
+ * <pre>
+ * $ java -cp bin:lib/cs1302-gameutil.jar cs1302.solver.PerftDriver DEPTH [ROWSxCOLS] [MOVES]
+ *     [divide] [dedup=MB] [threads=N]
+ * </pre>
+ *
+ * <p>
+ * Without {@code ROWSxCOLS} (e.g., {@code 6x7}), every supported board size is counted in
+ * turn. {@code MOVES} is the sequence of columns played on each board before counting, as for
+ * {@link cs1302.solver.SolverDriver}. With {@code divide}, the count at the last depth is also
+ * printed for each first column. With {@code dedup=MB}, each distinct position is counted once,
+ * using a position set of that many megabytes.
+ */
+public class PerftDriver {
+
+    // The depth of the count, on the standard board, that is run before the timed ones.
+    private static final int WARM_UP_DEPTH = 8;
+
+    /**
+     * Entry point to the {@link cs1302.solver.PerftDriver} program.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: PerftDriver DEPTH [ROWSxCOLS] [MOVES] [divide] "
+                               + "[dedup=MB] [threads=N]");
+            System.exit(1);
+        } // if
+        int depth = Integer.parseInt(args[0]);
+        List<int[]> sizes = new ArrayList<>();
+        String moves = "";
+        boolean divide = false;
+        int dedup = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].matches("\\d+x\\d+")) {
+                String[] size = args[i].split("x");
+                sizes.add(new int[] {Integer.parseInt(size[0]), Integer.parseInt(size[1])});
+            } else if (args[i].matches("\\d+")) {
+                moves = args[i];
+            } else if (args[i].equalsIgnoreCase("divide")) {
+                divide = true;
+            } else if (args[i].startsWith("dedup=")) {
+                dedup = Integer.parseInt(args[i].substring(6));
+            } else if (args[i].startsWith("threads=")) {
+                threads = Integer.parseInt(args[i].substring(8));
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            } // if
+        } // for
+        if (sizes.isEmpty()) {
+            for (int rows = 6; rows <= 9; rows++) {
+                for (int cols = 7; cols <= 9; cols++) {
+                    sizes.add(new int[] {rows, cols});
+                } // for
+            } // for
+        } // if
+
+        Perft perft = new Perft(threads);
+        perft.setDedup(dedup);
+        ConnectFour warmUp = new ConnectFour(6, 7);
+        warmUp.setPlayerTokens(Token.RED, Token.BLUE);
+        perft.perft(warmUp, Math.min(depth, WARM_UP_DEPTH)); // only warms up the JIT compiler
+        System.out.printf("%-6s %5s %16s %12s %14s%n", "board", "depth", "nodes", "ms",
+                          "nodes/s");
+        for (int[] size : sizes) {
+            ConnectFour game = new ConnectFour(size[0], size[1]);
+            game.setPlayerTokens(Token.RED, Token.BLUE);
+            SolverDriver.play(game, moves);
+            String board = size[0] + "x" + size[1];
+            PerftResult result = null;
+            for (int d = 1; d <= depth; d++) {
+                result = perft.perft(game, d);
+                System.out.printf("%-6s %5d %16d %12.1f %14d%n", board, d, result.getNodes(),
+                                  result.getNanos() / 1e6, result.getNodesPerSecond());
+            } // for
+            if (divide && result != null) {
+                for (int col = 0; col < size[1]; col++) {
+                    System.out.printf("%12s %d: %d%n", "column", col, result.getNodes(col));
+                } // for
+            } // if
+        } // for
+        perft.shutdown();
+    } // main
+
+} // PerftDriver
@@ -0,0 +1,89 @@
+package cs1302.solver;
+
+/**
+ * The outcome of a {@link cs1302.solver.Perft} count: the number of positions reached at the
+ * given depth, in total and divided by the first column dropped into, and how long the count
+ * took.
+ */
+public class PerftResult {
+
+    private final int depth;
+    private final long nodes;
+    private final long[] divide;
+    private final long nanos;
+
+    /**
+     * Construct a {@code PerftResult}.
+     *
+     * @param depth the depth counted to, in plies
+     * @param divide the number of positions reached through each first column
+     * @param nanos the elapsed time, in nanoseconds
+     */
+    public PerftResult(int depth, long[] divide, long nanos) {
+        this.depth = depth;
+        this.divide = divide.clone();
+        long total = 0;
+        for (long count : divide) {
+            total += count;
+        } // for
+        nodes = depth == 0 ? 1 : total;
+        this.nanos = nanos;
+    } // PerftResult
+
+    /**
+     * Return the depth counted to.
+     *
+     * @return the depth, in plies
+     */
+    public int getDepth() {
+        return depth;
+    } // getDepth
+
+    /**
+     * Return the number of positions reached at the depth.
+     *
+     * @return the node count
+     */
+    public long getNodes() {
+        return nodes;
+    } // getNodes
+
+    /**
+     * Return the number of positions reached at the depth through a first drop into
+     * {@code col}.
+     *
+     * @param col the first column
+     * @return the node count, or {@code 0} if the column was full
+     */
+    public long getNodes(int col) {
+        return divide[col];
+    } // getNodes
+
+    /**
+     * Return the elapsed time.
+     *
+     * @return the elapsed time, in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    } // getNanos
+
+    /**
+     * Return the counting speed.
+     *
+     * @return the number of positions reached per second
+     */
+    public long getNodesPerSecond() {
+        if (nanos <= 0) {
+            return nodes;
+        } // if
+        return (long) (nodes * 1e9 / nanos);
+    } // getNodesPerSecond
+
+    @Override
+    public String toString() {
+        return String.format("perft(%d) = %d nodes in %.3f ms, %d nodes/s", depth, nodes,
+                             nanos / 1e6, getNodesPerSecond());
+    } // toString
+
+} // PerftResult
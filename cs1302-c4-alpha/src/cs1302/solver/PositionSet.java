@@ -0,0 +1,61 @@
+package cs1302.solver;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size set of position keys that any number of threads can add to without locks. The
+ * keys live in one open-addressing table with linear probing, and a slot is claimed with a
+ * single compare-and-set, so two threads adding the same key agree on which of them added it.
+ * Keys are never removed. Key {@code 0} marks an empty slot, so it is stored as {@code 1}; two
+ * positions whose keys differ only in that way are treated as one, which is as unlikely as any
+ * other key collision.
+ */
+class PositionSet {
+
+    private final AtomicLongArray slots; // the keys, or 0 for an empty slot
+    private final int mask;              // number of slots - 1
+
+    /**
+     * Construct an empty {@code PositionSet} that takes about {@code megabytes} MiB.
+     *
+     * @param megabytes the size of the set, rounded down to a power of two
+     * @throws IllegalArgumentException if {@code megabytes} is not between {@code 1} and
+     *     {@code 8192}
+     */
+    PositionSet(int megabytes) {
+        if (megabytes < 1 || megabytes > 8192) {
+            throw new IllegalArgumentException("The set must hold 1 to 8192 MiB: " + megabytes);
+        } // if
+        int count = Integer.highestOneBit(megabytes) << 17; // 8-byte slots per MiB
+        slots = new AtomicLongArray(count);
+        mask = count - 1;
+    } // PositionSet
+
+    /**
+     * Add {@code key} to the set.
+     *
+     * @param key the position key
+     * @return {@code true} if the key was not in the set before
+     * @throws IllegalStateException if the set is full
+     */
+    boolean add(long key) {
+        if (key == 0) {
+            key = 1;
+        } // if
+        int i = (int) (key ^ key >>> 32) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            long slot = slots.get(i);
+            if (slot == key) {
+                return false;
+            } else if (slot == 0) {
+                if (slots.compareAndSet(i, 0, key)) {
+                    return true;
+                } // if
+                continue; // another thread took the slot; look at it again
+            } // if
+            i = (i + 1) & mask;
+        } // for
+        throw new IllegalStateException("The position set is full");
+    } // add
+
+} // PositionSet
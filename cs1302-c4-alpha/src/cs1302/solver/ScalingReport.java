@@ -0,0 +1,83 @@
+package cs1302.solver;
+
+import cs1302.game.ConnectFour;
+import cs1302.gameutil.Token;
+
+/**
+ * A command-line program that measures how {@link cs1302.solver.ParallelSolver} scales. Each
+ * standard position is searched to a fixed depth by the sequential {@link cs1302.solver.Solver}
+ * and then by a {@code ParallelSolver} with 1, 2, 4, 8 and 16 threads. For every run, the
+ * report shows the time, the speedup over the sequential search, the node count, and whether
+ * the result matched the sequential one. A report from a one-core host, which only shows that
+ * the results match, is kept in {@code resources/benchmarks/scaling.txt}.
+ *
+ * <pre>
+ * $ java -cp bin:lib/cs1302-gameutil.jar cs1302.solver.ScalingReport [DEPTH]
+ * </pre>
+ */
+public class ScalingReport {
+
+    // rows, cols and the columns played so far (one digit per drop)
+    private static final String[][] POSITIONS = {
+        {"6", "7", ""},
+        {"6", "7", "3332"},
+        {"6", "7", "33224541"},
+        {"7", "8", "3443"},
+        {"9", "9", "4444"},
+    };
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+
+    /**
+     * Entry point to the {@link cs1302.solver.ScalingReport} program.
+     *
+     * @param args the command-line arguments: an optional search depth (default {@code 14})
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 14;
+        System.out.printf("%-12s %-10s %7s %10s %8s %14s %12s %s%n", "board", "moves",
+                          "threads", "ms", "speedup", "nodes", "nodes/s", "same");
+        for (String[] position : POSITIONS) {
+            ConnectFour game = new ConnectFour(Integer.parseInt(position[0]),
+                                               Integer.parseInt(position[1]));
+            game.setPlayerTokens(Token.RED, Token.BLUE);
+            SolverDriver.play(game, position[2]);
+            String board = position[0] + "x" + position[1];
+
+            // the first search of each position only warms up the JIT compiler
+            Solver sequential = new Solver();
+            sequential.setMaxDepth(depth);
+            sequential.search(game, 0);
+            SearchResult base = sequential.search(game, 0);
+            print(board, position[2], "seq", base, base);
+
+            for (int threads : THREADS) {
+                ParallelSolver parallel = new ParallelSolver(threads);
+                parallel.setMaxDepth(depth);
+                SearchResult result = parallel.search(game, 0);
+                parallel.shutdown();
+                print(board, position[2], Integer.toString(threads), result, base);
+            } // for
+        } // for
+    } // main
+
+    /**
+     * Print one row of the report.
+     *
+     * @param board the board size
+     * @param moves the columns played before the search
+     * @param threads the number of threads, or {@code seq} for the sequential search
+     * @param result the result of the run
+     * @param base the result of the sequential run
+     */
+    private static void print(String board, String moves, String threads, SearchResult result,
+                              SearchResult base) {
+        boolean same = result.getBestMove() == base.getBestMove()
+            && result.getScore() == base.getScore() && result.getBound() == base.getBound();
+        System.out.printf("%-12s %-10s %7s %10.1f %8.2f %14d %12d %s%n", board,
+                          moves.isEmpty() ? "-" : moves, threads, result.getNanos() / 1e6,
+                          (double) base.getNanos() / result.getNanos(), result.getNodes(),
+                          result.getNodesPerSecond(), same ? "yes" : "NO");
+    } // print
+
+} // ScalingReport
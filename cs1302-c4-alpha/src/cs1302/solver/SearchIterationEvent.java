@@ -0,0 +1,46 @@
+package cs1302.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for one iteration of the iterative deepening of a
+ * {@link cs1302.solver.Solver}, from the start of the iteration to its end or abort. There are
+ * at most a few dozen iterations per search, so the event is enabled by default.
+ */
+@Name("cs1302.c4.SearchIteration")
+@Label("Search Iteration")
+@Category({"Connect Four", "Solver"})
+@Description("One iteration of a solver's iterative deepening")
+@StackTrace(false)
+final class SearchIterationEvent extends Event {
+
+    @Label("Ply")
+    @Description("The number of tokens in the grid at the root")
+    int ply;
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Score")
+    int score;
+
+    @Label("Bound")
+    String bound;
+
+    @Label("Best Column")
+    int bestMove;
+
+    @Label("Nodes")
+    @Description("The positions visited by the search so far, including earlier iterations")
+    long nodes;
+
+    @Label("Aborted")
+    @Description("Whether the iteration ran out of time or was stopped before it finished")
+    boolean aborted;
+
+} // SearchIterationEvent
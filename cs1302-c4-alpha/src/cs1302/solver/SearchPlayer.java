@@ -0,0 +1,134 @@
+package cs1302.solver;
+
+import cs1302.game.ConnectFour;
+import cs1302.game.Player;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link cs1302.game.Player} that plays the best column found by a
+ * {@link cs1302.solver.Solver}. The solver deepens one ply at a time until the deadline and
+ * then answers with the best column of its last completed iteration, so the move is never
+ * later than one node-check interval past the deadline. Without a deadline, it searches until
+ * the position is solved or the solver's depth limit is reached.
+ *
+ * <p>
+ * While the opponent is to move, the player {@linkplain #ponder ponders}: a short search
+ * predicts the opponent's reply, and the position after that reply is then searched until
+ * pondering stops, followed by the positions after the other replies if there is time. The
+ * searches fill the solver's transposition table, so a player that ponders should have one. If
+ * the opponent plays a pondered reply, the time spent on it counts towards the move: the
+ * player answers at once if the position was solved or pondered for the whole move time, and
+ * otherwise only searches for the rest of it. The player owns the age of the table: each turn,
+ * pondered or not, is one {@linkplain cs1302.solver.TranspositionTable#newSearch search}.
+ */
+public class SearchPlayer implements Player {
+
+    // How long the prediction of the opponent's reply may take.
+    private static final long PREDICT_MILLIS = 20;
+
+    private final Solver solver;              // the search to run
+    private final Map<Long, Pondered> pondered; // results of the last ponder, by position key
+    private volatile boolean pondering;       // cleared by stopPondering()
+    private boolean ponderedTurn;             // whether ponder() already began this turn
+
+    /**
+     * Construct a {@code SearchPlayer} that searches with {@code solver}. The solver's table,
+     * book and cache, if any, are kept from move to move.
+     *
+     * @param solver the solver
+     */
+    public SearchPlayer(Solver solver) {
+        this.solver = solver;
+        pondered = new HashMap<>();
+    } // SearchPlayer
+
+    @Override
+    public int chooseMove(ConnectFour view, long deadline) {
+        Pondered hit = pondered.get(view.getKey());
+        pondered.clear();
+        if (!ponderedTurn) {
+            newSearch();
+        } // if
+        ponderedTurn = false;
+        if (hit != null) {
+            if (hit.result.getBound() != Bound.HEURISTIC
+                || deadline != Long.MAX_VALUE && deadline - hit.nanos <= System.nanoTime()) {
+                return hit.result.getBestMove();
+            } // if
+            deadline = deadline == Long.MAX_VALUE ? deadline : deadline - hit.nanos;
+        } // if
+        return solver.search(view, Player.millisLeft(deadline)).getBestMove();
+    } // chooseMove
+
+    @Override
+    public void ponder(ConnectFour view) {
+        pondering = true;
+        pondered.clear();
+        newSearch();
+        ponderedTurn = true;
+        if (view.legalMoves() == 0 || view.getWinner() != -1) {
+            return;
+        } // if
+        int predicted = solver.search(view, PREDICT_MILLIS).getBestMove();
+        int opponent = Player.toMove(view);
+        int[] order = Solver.centerOrder(view.getCols());
+        for (int i = -1; i < order.length && pondering; i++) {
+            int reply = i < 0 ? predicted : order[i];
+            if (i >= 0 && reply == predicted || (view.legalMoves() & (1L << reply)) == 0) {
+                continue;
+            } // if
+            view.dropToken(opponent, reply);
+            if (view.getWinner() == -1 && view.legalMoves() != 0) {
+                long start = System.nanoTime();
+                SearchResult result = solver.search(view, 0);
+                if (result.getDepth() > 0) {
+                    pondered.put(view.getKey(), new Pondered(result, System.nanoTime() - start));
+                } // if
+            } // if
+            view.undo();
+        } // for
+    } // ponder
+
+    /**
+     * Begin a new search of the solver's table, if it has one.
+     */
+    private void newSearch() {
+        if (solver.getTable() != null) {
+            solver.getTable().newSearch();
+        } // if
+    } // newSearch
+
+    @Override
+    public void stopPondering() {
+        pondering = false;
+        solver.stop();
+    } // stopPondering
+
+    @Override
+    public String toString() {
+        return "search";
+    } // toString
+
+    /**
+     * The result of pondering one position.
+     */
+    private static final class Pondered {
+
+        final SearchResult result; // the last completed iteration
+        final long nanos;          // the time spent on the position
+
+        /**
+         * Construct a {@code Pondered}.
+         *
+         * @param result the last completed iteration
+         * @param nanos the time spent on the position, in nanoseconds
+         */
+        Pondered(SearchResult result, long nanos) {
+            this.result = result;
+            this.nanos = nanos;
+        } // Pondered
+
+    } // Pondered
+
+} // SearchPlayer
@@ -0,0 +1,111 @@
+package cs1302.solver;
+
+/**
+ * The outcome of a {@link cs1302.solver.Solver} search: the best column found, its score, and
+ * how much work the search did. Scores are from the point of view of the player to move. A
+ * positive score means that player can force a win, a negative score means the opponent can,
+ * and {@code 0} means a draw. The sooner the win, the larger the magnitude: winning with the
+ * player's last possible token scores {@code 1}.
+ */
+public class SearchResult {
+
+    private final int bestMove;
+    private final int score;
+    private final Bound bound;
+    private final int depth;
+    private final long nodes;
+    private final long nanos;
+
+    /**
+     * Construct a {@code SearchResult}.
+     *
+     * @param bestMove the best column found, or {@code -1} if there was no legal move
+     * @param score the score of the best column
+     * @param bound how {@code score} relates to the true score
+     * @param depth the depth of the last completed iteration, in plies
+     * @param nodes the number of positions visited
+     * @param nanos the elapsed time, in nanoseconds
+     */
+    public SearchResult(int bestMove, int score, Bound bound, int depth, long nodes, long nanos) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.bound = bound;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.nanos = nanos;
+    } // SearchResult
+
+    /**
+     * Return the best column found.
+     *
+     * @return the best column, or {@code -1} if the position had no legal move
+     */
+    public int getBestMove() {
+        return bestMove;
+    } // getBestMove
+
+    /**
+     * Return the score of the best column.
+     *
+     * @return the score
+     */
+    public int getScore() {
+        return score;
+    } // getScore
+
+    /**
+     * Return how the score relates to the true score of the position.
+     *
+     * @return the bound type
+     */
+    public Bound getBound() {
+        return bound;
+    } // getBound
+
+    /**
+     * Return the depth of the last completed iteration.
+     *
+     * @return the depth, in plies
+     */
+    public int getDepth() {
+        return depth;
+    } // getDepth
+
+    /**
+     * Return the number of positions visited.
+     *
+     * @return the node count
+     */
+    public long getNodes() {
+        return nodes;
+    } // getNodes
+
+    /**
+     * Return the elapsed time.
+     *
+     * @return the elapsed time, in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    } // getNanos
+
+    /**
+     * Return the search speed.
+     *
+     * @return the number of positions visited per second
+     */
+    public long getNodesPerSecond() {
+        if (nanos <= 0) {
+            return nodes;
+        } // if
+        return (long) (nodes * 1e9 / nanos);
+    } // getNodesPerSecond
+
+    @Override
+    public String toString() {
+        return String.format("column %d, score %d (%s), depth %d, %d nodes in %.3f ms, "
+                             + "%d nodes/s", bestMove, score, bound, depth, nodes, nanos / 1e6,
+                             getNodesPerSecond());
+    } // toString
+
+} // SearchResult
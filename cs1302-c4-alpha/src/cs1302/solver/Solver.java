@@ -0,0 +1,563 @@
+package cs1302.solver;
+
+import cs1302.game.ConnectFour;
+import cs1302.gameutil.GamePhase;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@code Solver} searches a {@link cs1302.game.ConnectFour} position for the best column to
+ * drop into. It uses negamax with alpha-beta pruning and principal variation search: the first
+ * move of each node is searched with the full window and every other move with a null-window
+ * probe that is only re-searched if it beats the first. Moves are tried center-first, and the
+ * best root move of the previous iteration is tried before all others.
+ *
+ * <p>
+ * An optional {@link cs1302.solver.TranspositionTable} caches the score, bound and best move of
+ * each position searched, keyed so that a position and its mirror image share one entry.
+ * Results that did not depend on the depth limit are stored as
+ * {@link cs1302.solver.TranspositionTable#PROVEN} and reused at any depth; the rest are reused
+ * only by searches that are no deeper, and the iteration that uses them is not exact. An
+ * optional {@link cs1302.solver.OpeningBook} is consulted the same way, ahead of the table, for
+ * positions with few enough tokens, and answers the root position outright when it can. An
+ * optional {@link cs1302.solver.DiskCache} is consulted after the table and keeps the proven
+ * results of large subtrees between runs. Grids of more than
+ * {@link cs1302.solver.TranspositionTable#MAX_CELLS} cells are searched without the table and
+ * the cache, whose entries cannot hold their scores.
+ *
+ * <p>
+ * The search deepens one ply at a time until the position is solved, the depth limit is
+ * reached or the time budget runs out, so it can be stopped at any time and still return the
+ * result of the last completed iteration. In weak mode the root window is narrowed to
+ * {@code [-1, 1]}, which only distinguishes wins, losses and draws and is much faster than
+ * computing the exact score.
+ *
+ * <p>
+ * The search plays moves on the supplied game with {@link cs1302.game.ConnectFour#tryDrop} and
+ * takes them back with {@link cs1302.game.ConnectFour#undo}, so the game must not be used by
+ * anything else while a search is running. It is left exactly as it was found. The player to
+ * move is assumed to be {@code numDropped % 2}, which is the order the CLI plays in.
+ */
+public class Solver {
+
+    // The clock and the stop flag are checked once every CHECK_MASK + 1 nodes.
+    private static final int CHECK_MASK = 4095;
+
+    private boolean weak;            // whether only win/loss/draw is computed
+    private int maxDepth;            // deepest iteration to run, or 0 for no limit
+    TranspositionTable table;        // cache of searched positions, or null
+    OpeningBook book;                // solved opening positions, or null
+    DiskCache cache;                 // exact results kept between runs, or null
+    final AtomicBoolean stopFlag;    // set by stop() to end the current search
+
+    // state of the search in progress; package-private so ParallelSolver can split it
+    ConnectFour game;  // the position being searched
+    int cells;         // number of cells in the grid
+    boolean packable;  // whether the grid is small enough for the table and the cache
+    int rootPly;       // number of tokens in the grid at the root
+    int ply;           // number of tokens in the grid
+    int[] order;       // columns in the order they are searched
+    int alphaRoot;     // lower bound of the root window
+    int betaRoot;      // upper bound of the root window
+    long deadline;     // System.nanoTime() value at which the search stops
+    long nodes;        // positions visited so far
+    boolean truncated; // whether the current iteration hit its depth limit
+    boolean aborted;   // whether the current iteration ran out of time
+    int rootBest;      // best root column of the current iteration
+    int nodeBest;      // best column of the node searchMoves last returned from
+    int bookPlies;     // positions with at most this many tokens are looked up in the book
+
+    /**
+     * Construct a {@code Solver} that computes exact scores without a depth limit.
+     */
+    public Solver() {
+        this(new AtomicBoolean());
+    } // Solver
+
+    /**
+     * Construct a {@code Solver} that stops when {@code stopFlag} is set. Helpers of a parallel
+     * search share the flag of the solver that started the search.
+     *
+     * @param stopFlag the flag that ends the search
+     */
+    Solver(AtomicBoolean stopFlag) {
+        this.stopFlag = stopFlag;
+    } // Solver
+
+    /**
+     * Set whether this solver computes only whether the position is a win, loss or draw. The
+     * reported scores are then {@link cs1302.solver.Bound#LOWER} bounds for wins and
+     * {@link cs1302.solver.Bound#UPPER} bounds for losses.
+     *
+     * @param weak {@code true} for weak mode and {@code false} for exact scores
+     */
+    public void setWeak(boolean weak) {
+        this.weak = weak;
+    } // setWeak
+
+    /**
+     * Return whether this solver computes only whether the position is a win, loss or draw.
+     *
+     * @return {@code true} in weak mode and {@code false} otherwise
+     */
+    public boolean isWeak() {
+        return weak;
+    } // isWeak
+
+    /**
+     * Set the deepest iteration a search may run. A search that reaches this depth returns
+     * its result even if there is time left.
+     *
+     * @param maxDepth the depth limit in plies, or {@code 0} for no limit
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    } // setMaxDepth
+
+    /**
+     * Set the transposition table this solver caches positions in. One table may be shared by
+     * any number of solvers, including ones searching at the same time. Searches do not age
+     * the table; whatever owns it calls {@link cs1302.solver.TranspositionTable#newSearch} once
+     * per move.
+     *
+     * @param table the table, or {@code null} to search without one
+     */
+    public void setTable(TranspositionTable table) {
+        this.table = table;
+    } // setTable
+
+    /**
+     * Return the transposition table this solver caches positions in.
+     *
+     * @return the table, or {@code null} if there is none
+     */
+    public TranspositionTable getTable() {
+        return table;
+    } // getTable
+
+    /**
+     * Set the opening book this solver looks positions up in before searching them. A book of
+     * another grid size is ignored.
+     *
+     * @param book the book, or {@code null} to search without one
+     */
+    public void setBook(OpeningBook book) {
+        this.book = book;
+    } // setBook
+
+    /**
+     * Return the opening book this solver looks positions up in.
+     *
+     * @return the book, or {@code null} if there is none
+     */
+    public OpeningBook getBook() {
+        return book;
+    } // getBook
+
+    /**
+     * Set the disk cache this solver keeps proven results in between runs. Positions the
+     * transposition table misses are looked up in the cache, and the results of searches of at
+     * least {@link cs1302.solver.DiskCache#MIN_NODES} nodes that did not depend on the depth
+     * limit are added to it.
+     *
+     * @param cache the cache, or {@code null} to search without one
+     */
+    public void setDiskCache(DiskCache cache) {
+        this.cache = cache;
+    } // setDiskCache
+
+    /**
+     * Return the disk cache this solver keeps proven results in.
+     *
+     * @return the cache, or {@code null} if there is none
+     */
+    public DiskCache getDiskCache() {
+        return cache;
+    } // getDiskCache
+
+    /**
+     * Ask the search in progress to stop as soon as possible. It returns the result of its
+     * last completed iteration. This method may be called from any thread.
+     */
+    public void stop() {
+        stopFlag.set(true);
+    } // stop
+
+    /**
+     * Solve {@code game} without a time limit. Positions early in a game can take a very long
+     * time to solve; use {@link #search(ConnectFour, long)} to bound the time.
+     *
+     * @param game the position to solve
+     * @return the best column and its score
+     */
+    public SearchResult solve(ConnectFour game) {
+        return search(game, 0);
+    } // solve
+
+    /**
+     * Search {@code game} for up to {@code millis} milliseconds, deepening one ply at a time.
+     *
+     * @param game the position to search
+     * @param millis the time budget in milliseconds, or {@code 0} for no limit
+     * @return the best column and its score, from the last completed iteration
+     */
+    public SearchResult search(ConnectFour game, long millis) {
+        long start = System.nanoTime();
+        deadline = millis <= 0 ? Long.MAX_VALUE : start + millis * 1_000_000L;
+        stopFlag.set(false);
+        this.game = game;
+        cells = game.getRows() * game.getCols();
+        packable = cells <= TranspositionTable.MAX_CELLS;
+        rootPly = game.getPhase() == GamePhase.READY ? 0 : game.getNumDropped();
+        ply = rootPly;
+        order = centerOrder(game.getCols());
+        nodes = 0;
+        aborted = false;
+
+        if (game.legalMoves() == 0 || game.getWinner() != -1) {
+            this.game = null;
+            return new SearchResult(-1, 0, Bound.EXACT, 0, 0, System.nanoTime() - start);
+        } // if
+
+        alphaRoot = weak ? -1 : -cells;
+        betaRoot = weak ? 1 : cells;
+        bookPlies = book != null && book.fits(game) ? book.getPlies() : -1;
+        if (ply <= bookPlies) {
+            SearchResult known = fromBook(start);
+            if (known != null) {
+                return known;
+            } // if
+        } // if
+        int lastDepth = maxDepth > 0 ? Math.min(maxDepth, cells - ply) : cells - ply;
+        SearchResult result = null;
+        rootBest = -1;
+        for (int depth = 1; depth <= lastDepth; depth++) {
+            SearchIterationEvent event = new SearchIterationEvent();
+            event.begin();
+            truncated = false;
+            int score = searchRoot(depth);
+            Bound bound = Bound.EXACT;
+            if (truncated) {
+                bound = Bound.HEURISTIC;
+            } else if (score >= betaRoot) {
+                bound = Bound.LOWER;
+            } else if (score <= alphaRoot) {
+                bound = Bound.UPPER;
+            } // if
+            if (event.shouldCommit()) {
+                event.ply = rootPly;
+                event.depth = depth;
+                event.score = score;
+                event.bound = bound.name();
+                event.bestMove = rootBest;
+                event.nodes = nodes;
+                event.aborted = aborted;
+                event.commit();
+            } // if
+            if (aborted) {
+                break;
+            } // if
+            result = new SearchResult(rootBest, score, bound, depth, nodes,
+                                      System.nanoTime() - start);
+            if (!truncated) {
+                break;
+            } // if
+        } // for
+
+        if (result == null) {
+            // not even one ply finished, so fall back to the most central legal column
+            result = new SearchResult(firstLegal(), 0, Bound.HEURISTIC, 0, nodes,
+                                      System.nanoTime() - start);
+        } // if
+        this.game = null;
+        return result;
+    } // search
+
+    /**
+     * Search the root position to {@code depth} plies and record its best column in
+     * {@code rootBest}.
+     *
+     * @param depth the depth limit, in plies
+     * @return the score of the best column, clamped to the root window
+     */
+    int searchRoot(int depth) {
+        nodes++;
+        int p = ply & 1;
+        long legal = game.legalMoves();
+        for (int col : order) {
+            if ((legal & (1L << col)) != 0 && game.isWinningDrop(p, col)) {
+                rootBest = col;
+                return Math.min((cells + 1 - ply) / 2, betaRoot);
+            } // if
+        } // for
+        int score = searchMoves(alphaRoot, betaRoot, depth, rootBest);
+        rootBest = nodeBest;
+        return score;
+    } // searchRoot
+
+    /**
+     * Return the negamax score of the current position, searched to {@code depth} plies with
+     * the window {@code (alpha, beta)}. Positions at the depth limit score {@code 0} and mark
+     * the iteration as truncated, as does any use of a table entry that is not proven.
+     *
+     * @param alpha the lower bound of the search window
+     * @param beta the upper bound of the search window
+     * @param depth the depth limit, in plies
+     * @return the score of the position for the player to move
+     */
+    int negamax(int alpha, int beta, int depth) {
+        nodes++;
+        if ((nodes & CHECK_MASK) == 0 && (stopFlag.get() || System.nanoTime() > deadline)) {
+            aborted = true;
+        } // if
+        if (aborted || ply == cells) {
+            return 0;
+        } // if
+
+        int p = ply & 1;
+        long legal = game.legalMoves();
+        for (int col : order) {
+            if ((legal & (1L << col)) != 0 && game.isWinningDrop(p, col)) {
+                return (cells + 1 - ply) / 2;
+            } // if
+        } // for
+
+        // we cannot win sooner than our next move and the opponent not sooner than theirs
+        int max = (cells - 1 - ply) / 2;
+        if (beta > max) {
+            beta = max;
+            if (alpha >= beta) {
+                return beta;
+            } // if
+        } // if
+        int min = -(cells - ply) / 2;
+        if (alpha < min) {
+            alpha = min;
+            if (alpha >= beta) {
+                return alpha;
+            } // if
+        } // if
+
+        // a player with no open line of four left can do no better than a draw; lines only close
+        // up once the grid is about half full, so earlier positions skip the check
+        if (2 * ply >= cells) {
+            if (beta > 0 && !game.hasOpenWindow(p)) {
+                beta = 0;
+                if (alpha >= beta) {
+                    return beta;
+                } // if
+            } // if
+            if (alpha < 0 && !game.hasOpenWindow(1 - p)) {
+                alpha = 0;
+                if (alpha >= beta) {
+                    return alpha;
+                } // if
+            } // if
+        } // if
+
+        long key = 0;
+        boolean mirrored = false;
+        int tableMove = -1;
+        boolean heuristic = false;
+        if (packable && (table != null || cache != null) || ply <= bookPlies) {
+            key = game.getCanonicalKey();
+            mirrored = game.isMirrorCanonical();
+            long entry = ply <= bookPlies ? book.probe(key) : 0;
+            if (entry == 0 && table != null) {
+                entry = table.probe(key);
+            } // if
+            if (entry == 0 && cache != null) {
+                entry = cache.probe(key);
+                if (entry != 0 && table != null) {
+                    table.store(key, TranspositionTable.score(entry),
+                                TranspositionTable.bound(entry), TranspositionTable.PROVEN,
+                                TranspositionTable.move(entry));
+                } // if
+            } // if
+            int entryDepth = TranspositionTable.depth(entry);
+            if (entry != 0 && (entryDepth == TranspositionTable.PROVEN || entryDepth >= depth)) {
+                int score = TranspositionTable.score(entry);
+                Bound bound = TranspositionTable.bound(entry);
+                heuristic = entryDepth != TranspositionTable.PROVEN;
+                if (bound == Bound.EXACT || (bound == Bound.LOWER && score >= beta)
+                    || (bound == Bound.UPPER && score <= alpha)) {
+                    truncated |= heuristic;
+                    return score;
+                } else if (bound == Bound.LOWER && score > alpha) {
+                    alpha = score;
+                } else if (bound == Bound.UPPER && score < beta) {
+                    beta = score;
+                } else {
+                    heuristic = false;
+                } // if
+            } // if
+            if (entry != 0) {
+                tableMove = mirror(TranspositionTable.move(entry), mirrored);
+            } // if
+        } // if
+        if (depth == 0) {
+            truncated = true;
+            return 0;
+        } // if
+
+        // track whether this subtree depended on the depth limit, to know how to store it
+        boolean outer = truncated;
+        truncated = heuristic;
+        long before = nodes;
+        int score = searchMoves(alpha, beta, depth, tableMove);
+        Bound bound = score <= alpha ? Bound.UPPER : score >= beta ? Bound.LOWER : Bound.EXACT;
+        if (packable && table != null && !aborted) {
+            table.store(key, score, bound, truncated ? depth : TranspositionTable.PROVEN,
+                        mirror(nodeBest, mirrored));
+        } // if
+        if (packable && cache != null && !aborted && !truncated
+            && nodes - before >= DiskCache.MIN_NODES) {
+            cache.store(key, TranspositionTable.pack(score, bound, TranspositionTable.PROVEN,
+                                                     mirror(nodeBest, mirrored), 0));
+        } // if
+        truncated |= outer;
+        return score;
+    } // negamax
+
+    /**
+     * Search every legal move of the current position and return the best score (fail-soft).
+     * The column {@code first} (the previous iteration's best at the root, or the table's best
+     * elsewhere) is searched before the others, and the best column is recorded in
+     * {@code nodeBest}. At the root, scores are clamped to the root window so that the chosen
+     * column does not depend on how tight the bounds of losing moves happen to be.
+     *
+     * @param alpha the lower bound of the search window
+     * @param beta the upper bound of the search window
+     * @param depth the depth limit, in plies
+     * @param first the column to search first, or {@code -1}
+     * @return the score of the best move
+     */
+    int searchMoves(int alpha, int beta, int depth, int first) {
+        boolean root = ply == rootPly;
+        long legal = game.legalMoves();
+        int previous = first;
+        int best = Integer.MIN_VALUE;
+        int bestCol = -1;
+        for (int i = -1; i < order.length; i++) {
+            int col = i < 0 ? previous : order[i];
+            if (col < 0 || (i >= 0 && col == previous) || (legal & (1L << col)) == 0) {
+                continue;
+            } // if
+            int score = searchChild(col, alpha, beta, depth, best == Integer.MIN_VALUE);
+            if (aborted) {
+                return 0;
+            } // if
+            if (root) {
+                score = Math.max(alphaRoot, Math.min(betaRoot, score));
+            } // if
+            if (score > best) {
+                best = score;
+                bestCol = col;
+            } // if
+            if (score > alpha) {
+                alpha = score;
+            } // if
+            if (alpha >= beta) {
+                break;
+            } // if
+        } // for
+        nodeBest = bestCol;
+        return best;
+    } // searchMoves
+
+    /**
+     * Play {@code col}, search the resulting position, and take the move back. The first child
+     * of a node is searched with the full window; later children get a null-window probe that
+     * is re-searched with the full window only if it lands inside {@code (alpha, beta)}.
+     *
+     * @param col the column to play
+     * @param alpha the lower bound of the search window
+     * @param beta the upper bound of the search window
+     * @param depth the depth limit of the parent, in plies
+     * @param first whether this is the first child searched
+     * @return the score of the move from the point of view of the player making it
+     */
+    int searchChild(int col, int alpha, int beta, int depth, boolean first) {
+        game.tryDrop(ply & 1, col);
+        ply++;
+        int score;
+        if (first) {
+            score = -negamax(-beta, -alpha, depth - 1);
+        } else {
+            score = -negamax(-alpha - 1, -alpha, depth - 1);
+            if (!aborted && score > alpha && score < beta) {
+                score = -negamax(-beta, -alpha, depth - 1);
+            } // if
+        } // if
+        game.undo();
+        ply--;
+        return score;
+    } // searchChild
+
+    /**
+     * Return the book's result for the root position if it answers the question this solver
+     * asks: an exact score, or in weak mode, whether the position is a win, loss or draw.
+     *
+     * @param start the {@link System#nanoTime} value at which the search started
+     * @return the result, or {@code null} if the book cannot answer
+     */
+    private SearchResult fromBook(long start) {
+        long entry = book.probe(game.getCanonicalKey());
+        if (entry == 0 || (!weak && TranspositionTable.bound(entry) != Bound.EXACT)) {
+            return null;
+        } // if
+        int move = mirror(TranspositionTable.move(entry), game.isMirrorCanonical());
+        int score = Math.max(alphaRoot, Math.min(betaRoot, TranspositionTable.score(entry)));
+        Bound bound = TranspositionTable.bound(entry);
+        if (score >= betaRoot) {
+            bound = Bound.LOWER;
+        } else if (score <= alphaRoot) {
+            bound = Bound.UPPER;
+        } // if
+        this.game = null;
+        return new SearchResult(move, score, bound, cells - ply, 0, System.nanoTime() - start);
+    } // fromBook
+
+    /**
+     * Translate a column between the current position and its mirror image.
+     *
+     * @param col the column, or {@code -1}
+     * @param mirrored whether to translate
+     * @return the mirrored column if {@code mirrored} is {@code true} and {@code col} is a
+     *     column; otherwise, {@code col}
+     */
+    private int mirror(int col, boolean mirrored) {
+        return mirrored && col >= 0 ? order.length - 1 - col : col;
+    } // mirror
+
+    /**
+     * Return the most central legal column of the position being searched.
+     *
+     * @return the column index
+     */
+    private int firstLegal() {
+        long legal = game.legalMoves();
+        for (int col : order) {
+            if ((legal & (1L << col)) != 0) {
+                return col;
+            } // if
+        } // for
+        return -1;
+    } // firstLegal
+
+    /**
+     * Return the columns of a grid ordered from the center outwards, alternating sides and
+     * starting on the left when two columns are equally central.
+     *
+     * @param cols the number of columns
+     * @return the column indexes in search order
+     */
+    static int[] centerOrder(int cols) {
+        int[] order = new int[cols];
+        for (int i = 0; i < cols; i++) {
+            int sign = (i % 2 == 1) == (cols % 2 == 0) ? 1 : -1;
+            order[i] = (cols - 1) / 2 + sign * ((i + 1) / 2);
+        } // for
+        return order;
+    } // centerOrder
+
+} // Solver
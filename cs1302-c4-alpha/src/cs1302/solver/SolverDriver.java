@@ -0,0 +1,88 @@
+package cs1302.solver;
+
+import cs1302.game.ConnectFour;
+import cs1302.gameutil.Token;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * A command-line program that searches one {@link cs1302.game.ConnectFour} position with a
+ * {@link cs1302.solver.Solver} and prints the result, including node counts and speed.
+ *
+ * <pre>
+ * $ java -cp bin:lib/cs1302-gameutil.jar cs1302.solver.SolverDriver ROWS COLS MILLIS [MOVES] [weak]
+ *     [table=MB] [book=FILE] [cache=FILE]
+ * </pre>
+ *
+ * <p>
+ * {@code MOVES} is the sequence of columns played so far, one digit per drop (e.g.,
+ * {@code 3342}), with the players alternating and the first player moving first. A
+ * {@code MILLIS} of {@code 0} searches until the position is solved. With {@code table=MB}, the
+ * search uses a transposition table of that many megabytes and its statistics are printed. With
+ * {@code book=FILE}, the search looks positions up in the opening book stored in that file.
+ * With {@code cache=FILE}, exact results are kept in that file between runs; a new cache file
+ * holds {@value #CACHE_MB} MB.
+ */
+public class SolverDriver {
+
+    /** The size of a new cache file in MiB. */
+    static final int CACHE_MB = 256;
+
+    /**
+     * Entry point to the {@link cs1302.solver.SolverDriver} program.
+     *
+     * @param args the command-line arguments
+     * @throws IOException if the opening book or the cache cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: SolverDriver ROWS COLS MILLIS [MOVES] [weak] [table=MB] "
+                               + "[book=FILE] [cache=FILE]");
+            System.exit(1);
+        } // if
+        ConnectFour game = new ConnectFour(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+        game.setPlayerTokens(Token.RED, Token.BLUE);
+        long millis = Long.parseLong(args[2]);
+        Solver solver = new Solver();
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].equalsIgnoreCase("weak")) {
+                solver.setWeak(true);
+            } else if (args[i].startsWith("table=")) {
+                solver.setTable(new TranspositionTable(Integer.parseInt(args[i].substring(6))));
+            } else if (args[i].startsWith("book=")) {
+                solver.setBook(OpeningBook.open(Paths.get(args[i].substring(5))));
+            } else if (args[i].startsWith("cache=")) {
+                solver.setDiskCache(DiskCache.open(Paths.get(args[i].substring(6)), CACHE_MB));
+            } else {
+                play(game, args[i]);
+            } // if
+        } // for
+        game.printGrid();
+        System.out.println(solver.search(game, millis));
+        if (solver.getTable() != null) {
+            System.out.println(solver.getTable());
+        } // if
+        if (solver.getDiskCache() != null) {
+            solver.getDiskCache().close();
+            System.out.println(solver.getDiskCache());
+        } // if
+    } // main
+
+    /**
+     * Play a sequence of columns on {@code game}, alternating players.
+     *
+     * @param game the game to play on
+     * @param moves one digit per drop
+     * @throws IllegalArgumentException if a move is not a digit
+     */
+    static void play(ConnectFour game, String moves) {
+        for (int i = 0; i < moves.length(); i++) {
+            int col = Character.digit(moves.charAt(i), 10);
+            if (col < 0) {
+                throw new IllegalArgumentException("Not a column: " + moves.charAt(i));
+            } // if
+            game.dropToken(i % 2, col);
+        } // for
+    } // play
+
+} // SolverDriver
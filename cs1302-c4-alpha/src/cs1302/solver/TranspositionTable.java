@@ -0,0 +1,301 @@
+package cs1302.solver;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@code TranspositionTable} caches search results by position key so that a position
+ * reached through different move orders is only searched once. It has a fixed size and lives
+ * outside the Java heap in direct {@link java.nio.ByteBuffer}s, so even a table of several
+ * gigabytes adds nothing for the garbage collector to trace.
+ *
+ * <p>
+ * The table is a power-of-two number of 32-byte buckets, each holding two entries of two
+ * {@code long} words. The first word of an entry is the position key XORed with the second,
+ * and the second packs the score, bound, depth, best move and age (see {@link #pack}). A probe
+ * only accepts an entry whose two words XOR back to the key it is looking for, so an entry torn
+ * by two threads writing at once is simply treated as a miss. This makes the table safe to
+ * share between any number of search threads without locks.
+ *
+ * <p>
+ * The first entry of a bucket is depth-preferred: it is only replaced by a result that is at
+ * least as deep, by a result for the same position, or once it is left over from an earlier
+ * search. The second entry always takes whatever the first entry rejects. A search ends, and
+ * the next begins, only when the owner of the table calls {@link #newSearch}: the solvers that
+ * share a table never do, so the helpers of one move all store results of the same age.
+ */
+public class TranspositionTable {
+
+    /** Depth stored for results that did not depend on a depth limit. */
+    public static final int PROVEN = 255;
+
+    /**
+     * The most cells a grid can have for its scores and depths to fit in an entry. Solvers
+     * search larger grids without a table.
+     */
+    public static final int MAX_CELLS = 254;
+
+    // The byte buffers of the table are at most 1 GiB each.
+    private static final int CHUNK_SHIFT = 30;
+
+    private static final VarHandle LONGS =
+        MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer[] chunks; // the buckets, 2^(CHUNK_SHIFT - 5) per chunk
+    private final long bucketMask;     // number of buckets - 1
+    private final AtomicInteger age = new AtomicInteger(); // generation of the current search
+
+    private final LongAdder probes = new LongAdder();     // calls to probe
+    private final LongAdder hits = new LongAdder();       // probes that found their key
+    private final LongAdder collisions = new LongAdder(); // probes that found another key
+    private final LongAdder stores = new LongAdder();     // calls to store
+    private final LongAdder used = new LongAdder();       // stores into empty entries
+
+    /**
+     * Construct a {@code TranspositionTable} that uses at most {@code megabytes} of off-heap
+     * memory. The number of buckets is rounded down to a power of two.
+     *
+     * @param megabytes the table size in MiB
+     * @throws IllegalArgumentException if {@code megabytes} is less than {@code 1}
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("The table needs at least 1 MB");
+        } // if
+        long bytes = Long.highestOneBit((long) megabytes << 20);
+        bucketMask = (bytes >>> 5) - 1;
+        long chunkBytes = Math.min(bytes, 1L << CHUNK_SHIFT);
+        chunks = new ByteBuffer[(int) (bytes / chunkBytes)];
+        for (int i = 0; i < chunks.length; i++) {
+            // one extra word lets the slice start on an 8-byte boundary, as atomic access needs
+            chunks[i] = ByteBuffer.allocateDirect((int) chunkBytes + 8).alignedSlice(8);
+        } // for
+    } // TranspositionTable
+
+    /**
+     * Return the entry stored for {@code key}, packed as described in {@link #pack}, or
+     * {@code 0} if there is none.
+     *
+     * @param key the position key
+     * @return the packed entry, or {@code 0}
+     */
+    public long probe(long key) {
+        CacheProbeEvent event = new CacheProbeEvent();
+        event.begin();
+        probes.increment();
+        long bucket = key & bucketMask;
+        ByteBuffer chunk = chunks[(int) (bucket >>> (CHUNK_SHIFT - 5))];
+        int offset = (int) (bucket << 5) & ((1 << CHUNK_SHIFT) - 1);
+        long found = 0;
+        boolean occupied = false;
+        for (int entry = offset; entry < offset + 32 && found == 0; entry += 16) {
+            long data = (long) LONGS.getOpaque(chunk, entry + 8);
+            long check = (long) LONGS.getOpaque(chunk, entry);
+            if (data != 0 && (check ^ data) == key) {
+                found = data;
+            } // if
+            occupied |= data != 0;
+        } // for
+        if (found != 0) {
+            hits.increment();
+        } else if (occupied) {
+            collisions.increment();
+        } // if
+        if (event.shouldCommit()) {
+            event.key = key;
+            event.hit = found != 0;
+            event.collision = found == 0 && occupied;
+            event.depth = found == 0 ? -1 : depth(found);
+            event.bound = found == 0 ? null : bound(found).name();
+            event.commit();
+        } // if
+        return found;
+    } // probe
+
+    /**
+     * Store a search result for {@code key}.
+     *
+     * @param key the position key
+     * @param score the score of the position for the player to move
+     * @param bound how {@code score} relates to the true score; not
+     *     {@link cs1302.solver.Bound#HEURISTIC}
+     * @param depth the remaining depth that was searched, or {@link #PROVEN}
+     * @param move the best column found, or {@code -1}
+     */
+    public void store(long key, int score, Bound bound, int depth, int move) {
+        stores.increment();
+        long bucket = key & bucketMask;
+        ByteBuffer chunk = chunks[(int) (bucket >>> (CHUNK_SHIFT - 5))];
+        int offset = (int) (bucket << 5) & ((1 << CHUNK_SHIFT) - 1);
+        int current = age.get();
+        long data = pack(score, bound, depth, move, current);
+
+        long first = (long) LONGS.getOpaque(chunk, offset + 8);
+        long firstKey = (long) LONGS.getOpaque(chunk, offset) ^ first;
+        int entry = offset + 16;
+        if (first == 0 || firstKey == key || age(first) != current || depth >= depth(first)) {
+            entry = offset;
+        } // if
+        if ((long) LONGS.getOpaque(chunk, entry + 8) == 0) {
+            used.increment();
+        } // if
+        LONGS.setOpaque(chunk, entry, key ^ data);
+        LONGS.setOpaque(chunk, entry + 8, data);
+    } // store
+
+    /**
+     * Start a new search. Entries stored by earlier searches stay usable but become the first
+     * to be replaced. This should be called once per move or other top-level search by
+     * whatever owns the table, not by each of the searches that share it.
+     */
+    public void newSearch() {
+        age.getAndUpdate(a -> (a + 1) & 0xff);
+    } // newSearch
+
+    /**
+     * Remove every entry and reset the statistics.
+     */
+    public void clear() {
+        for (ByteBuffer chunk : chunks) {
+            for (int i = 0; i < chunk.capacity(); i += 8) {
+                LONGS.setOpaque(chunk, i, 0L);
+            } // for
+        } // for
+        probes.reset();
+        hits.reset();
+        collisions.reset();
+        stores.reset();
+        used.reset();
+    } // clear
+
+    /**
+     * Return the number of entries the table can hold.
+     *
+     * @return the capacity in entries
+     */
+    public long getCapacity() {
+        return (bucketMask + 1) * 2;
+    } // getCapacity
+
+    /**
+     * Return the number of probes made since the table was created or cleared.
+     *
+     * @return the probe count
+     */
+    public long getProbes() {
+        return probes.sum();
+    } // getProbes
+
+    /**
+     * Return the fraction of probes that found their position.
+     *
+     * @return the hit rate, from {@code 0} to {@code 1}
+     */
+    public double getHitRate() {
+        long count = probes.sum();
+        return count == 0 ? 0 : (double) hits.sum() / count;
+    } // getHitRate
+
+    /**
+     * Return the number of probes that found only entries for other positions.
+     *
+     * @return the collision count
+     */
+    public long getCollisions() {
+        return collisions.sum();
+    } // getCollisions
+
+    /**
+     * Return the fraction of entries that hold a result. Under heavy concurrent writes this is
+     * an estimate.
+     *
+     * @return the fill level, from {@code 0} to {@code 1}
+     */
+    public double getFillLevel() {
+        return Math.min(1.0, (double) used.sum() / getCapacity());
+    } // getFillLevel
+
+    @Override
+    public String toString() {
+        return String.format("%d entries, %d probes, %.1f%% hits, %d collisions, %d stores, "
+                             + "%.1f%% full", getCapacity(), getProbes(), getHitRate() * 100,
+                             getCollisions(), stores.sum(), getFillLevel() * 100);
+    } // toString
+
+    //----------------------------------------------------------------------------------------------
+    // ENTRY LAYOUT: bits 0-7 score + 128, 8-9 bound (1 exact, 2 lower, 3 upper), 10-17 depth,
+    // 18-24 move + 1, 25-32 age. The bound is never 0, so an empty entry is the only zero entry.
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * Pack an entry into one {@code long}.
+     *
+     * @param score the score ({@code -128} to {@code 127})
+     * @param bound the bound type
+     * @param depth the depth ({@code 0} to {@code 255})
+     * @param move the best column ({@code -1} to {@code 126})
+     * @param age the generation ({@code 0} to {@code 255})
+     * @return the packed entry
+     */
+    static long pack(int score, Bound bound, int depth, int move, int age) {
+        long code = bound == Bound.EXACT ? 1 : bound == Bound.LOWER ? 2 : 3;
+        return (score + 128) | code << 8 | (long) depth << 10 | (long) (move + 1) << 18
+            | (long) age << 25;
+    } // pack
+
+    /**
+     * Return the score of a packed entry.
+     *
+     * @param entry the packed entry
+     * @return the score
+     */
+    public static int score(long entry) {
+        return (int) (entry & 0xff) - 128;
+    } // score
+
+    /**
+     * Return the bound type of a packed entry.
+     *
+     * @param entry the packed entry
+     * @return the bound type
+     */
+    public static Bound bound(long entry) {
+        int code = (int) (entry >>> 8) & 3;
+        return code == 1 ? Bound.EXACT : code == 2 ? Bound.LOWER : Bound.UPPER;
+    } // bound
+
+    /**
+     * Return the depth of a packed entry.
+     *
+     * @param entry the packed entry
+     * @return the depth, or {@link #PROVEN}
+     */
+    public static int depth(long entry) {
+        return (int) (entry >>> 10) & 0xff;
+    } // depth
+
+    /**
+     * Return the best column of a packed entry.
+     *
+     * @param entry the packed entry
+     * @return the column, or {@code -1} if none was stored
+     */
+    public static int move(long entry) {
+        return ((int) (entry >>> 18) & 0x7f) - 1;
+    } // move
+
+    /**
+     * Return the generation of a packed entry.
+     *
+     * @param entry the packed entry
+     * @return the generation
+     */
+    static int age(long entry) {
+        return (int) (entry >>> 25) & 0xff;
+    } // age
+
+} // TranspositionTable